@@ -0,0 +1,56 @@
+package com.outsystems.plugins.rpsgame.benchmark;
+
+import com.outsystems.plugins.rpsgame.engine.GestureClassifier;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.fixtures.HandFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classification of a single hand: finger tests, bounding box and gesture mapping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GestureClassifierBenchmark {
+
+    private static final int FRAMES = 1024;
+
+    @Param({"ROCK", "PAPER", "SCISSORS", "MIXED"})
+    public String gesture;
+
+    private float[][] hands;
+    private final GestureClassifier.Result result = new GestureClassifier.Result();
+    private int next;
+
+    @Setup
+    public void setup() {
+        RPSGesture[] gestures = "MIXED".equals(gesture)
+                ? RPSGesture.values()
+                : new RPSGesture[]{RPSGesture.valueOf(gesture)};
+        hands = HandFixtures.frames(FRAMES, 1, gestures, 42);
+    }
+
+    @Benchmark
+    public RPSGesture classify() {
+        float[] hand = hands[next];
+        next = (next + 1) & (FRAMES - 1);
+        GestureClassifier.classify(hand, 0, result);
+        return result.gesture;
+    }
+
+    @Benchmark
+    public RPSGesture gestureFor() {
+        next = (next + 1) & 31;
+        return GestureClassifier.gestureFor(next);
+    }
+}
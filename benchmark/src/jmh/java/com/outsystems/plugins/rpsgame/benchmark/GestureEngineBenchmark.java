@@ -0,0 +1,58 @@
+package com.outsystems.plugins.rpsgame.benchmark;
+
+import com.outsystems.plugins.rpsgame.engine.FrameResult;
+import com.outsystems.plugins.rpsgame.engine.GestureEngine;
+import com.outsystems.plugins.rpsgame.engine.GestureStabilizer;
+import com.outsystems.plugins.rpsgame.engine.Outcome;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.fixtures.HandFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full frame through the engine: classification of every hand, player ordering,
+ * stabilization and the outcome, for 0, 1, 2 and more hands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GestureEngineBenchmark {
+
+    private static final int FRAMES = 1024;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int hands;
+
+    private float[][] frames;
+    private GestureEngine engine;
+    private FrameResult result;
+    private int next;
+
+    @Setup
+    public void setup() {
+        RPSGesture[] gestures = {RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.SCISSORS};
+        frames = HandFixtures.frames(FRAMES, hands, gestures, 42);
+
+        int players = Math.max(GestureEngine.DEFAULT_MAX_PLAYERS, hands);
+        engine = new GestureEngine(players, GestureStabilizer.DEFAULT_WINDOW_SIZE,
+                GestureStabilizer.DEFAULT_ENTER_RATIO, GestureStabilizer.DEFAULT_EXIT_RATIO);
+        result = new FrameResult(players);
+    }
+
+    @Benchmark
+    public Outcome process() {
+        float[] frame = frames[next];
+        next = (next + 1) & (FRAMES - 1);
+        engine.process(frame, hands, result);
+        return result.outcome;
+    }
+}
@@ -0,0 +1,32 @@
+package com.outsystems.plugins.rpsgame.benchmark;
+
+import com.outsystems.plugins.rpsgame.engine.Outcome;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Winner decision over every pair of gestures.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OutcomeBenchmark {
+
+    private final RPSGesture[] gestures = RPSGesture.values();
+    private int next;
+
+    @Benchmark
+    public Outcome of() {
+        int pair = next;
+        next = (next + 1) % (gestures.length * gestures.length);
+        return Outcome.of(gestures[pair / gestures.length], gestures[pair % gestures.length]);
+    }
+}
@@ -0,0 +1,108 @@
+package com.outsystems.plugins.rpsgame.benchmark;
+
+import com.outsystems.plugins.rpsgame.engine.FrameResult;
+import com.outsystems.plugins.rpsgame.engine.GestureClassifier;
+import com.outsystems.plugins.rpsgame.engine.GestureEngine;
+import com.outsystems.plugins.rpsgame.engine.LandmarkRecorder;
+import com.outsystems.plugins.rpsgame.engine.LandmarkRecording;
+import com.outsystems.plugins.rpsgame.engine.LandmarkReplay;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.fixtures.HandFixtures;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a whole landmark recording through the engine. Without a recording (see
+ * build.gradle) a synthetic session is recorded first, with hands entering, playing and leaving.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReplayBenchmark {
+
+    private static final int SYNTHETIC_FRAMES = 30 * 60 * 10; // ten minutes at 30 fps
+
+    @Param({""})
+    public String recording;
+
+    private File file;
+    private boolean synthetic;
+    private LandmarkReplay replay;
+    private final LandmarkRecording.Frame frame = new LandmarkRecording.Frame();
+    private final GestureEngine engine = new GestureEngine();
+    private final FrameResult result = new FrameResult(GestureEngine.DEFAULT_MAX_PLAYERS);
+
+    /**
+     * Reports replayed frames per second next to replays per second.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long frames;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        synthetic = recording.isEmpty();
+        file = synthetic ? recordSyntheticSession() : new File(recording);
+        replay = new LandmarkReplay(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        replay.close();
+        if (synthetic && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public FrameResult replay(Counters counters) throws IOException {
+        replay.rewind();
+        engine.reset();
+        counters.frames += replay.replay(engine, result, frame, null);
+        return result;
+    }
+
+    private static File recordSyntheticSession() throws IOException {
+        File file = File.createTempFile("replay-benchmark", ".rpsl");
+        Random random = new Random(42);
+        RPSGesture[] gestures = {RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.SCISSORS, RPSGesture.UNKNOWN};
+        float[] landmarks = new float[2 * GestureClassifier.FLOATS_PER_HAND];
+
+        LandmarkRecorder recorder = new LandmarkRecorder(file);
+        try {
+            for (int i = 0; i < SYNTHETIC_FRAMES; i++) {
+                // Rounds of three seconds: nobody, one player, then both players
+                int hands = (i / 30) % 3;
+                for (int h = 0; h < hands; h++) {
+                    RPSGesture gesture = gestures[(i / 90 + h) % gestures.length];
+                    HandFixtures.hand(landmarks, h, (h + 0.5f) / hands, 0.7f,
+                            HandFixtures.fingersFor(gesture), random);
+                }
+                while (!recorder.record(i * 33L, landmarks, hands, null, null)) {
+                    // Writer is behind, recording is not what is measured here
+                    Thread.yield();
+                }
+            }
+        } finally {
+            recorder.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,55 @@
+package com.outsystems.plugins.rpsgame.benchmark;
+
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+import com.outsystems.plugins.rpsgame.engine.RoundResolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group round resolution over random throws, for groups from two to six players.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoundResolverBenchmark {
+
+    private static final int ROUNDS = 1024;
+
+    @Param({"2", "3", "6"})
+    public int players;
+
+    private RPSGesture[][] rounds;
+    private final RoundResolver.Result result = new RoundResolver.Result();
+    private int next;
+
+    @Setup
+    public void setup() {
+        RPSGesture[] gestures = {RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.SCISSORS};
+        Random random = new Random(42);
+        rounds = new RPSGesture[ROUNDS][players];
+        for (RPSGesture[] round : rounds) {
+            for (int p = 0; p < players; p++) {
+                round[p] = gestures[random.nextInt(gestures.length)];
+            }
+        }
+    }
+
+    @Benchmark
+    public Resolution resolve() {
+        RPSGesture[] round = rounds[next];
+        next = (next + 1) & (ROUNDS - 1);
+        RoundResolver.resolve(round, players, result);
+        return result.resolution;
+    }
+}
@@ -0,0 +1,209 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.util.Log;
+import android.util.Size;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frames of the front camera through CameraX, with the preview shown in a {@link PreviewView}.
+ *
+ * Analysis keeps only the latest frame and outputs RGBA_8888, so no YUV conversion happens on
+ * our side. A resolution change rebinds only the analysis use case, the preview keeps running.
+ * The frames the camera replaced before the analyzer got to them are estimated from timestamp
+ * gaps and counted in {@link PerformanceStats}.
+ */
+public class CameraFrameSource implements FrameSource {
+
+    private static final String TAG = "CameraFrameSource";
+
+    private final AppCompatActivity activity;
+    private final PreviewView previewView;
+    private Size targetResolution;
+
+    private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
+    private ProcessCameraProvider cameraProvider;
+    private CameraSelector cameraSelector;
+    private ImageAnalysis imageAnalysis;
+    private ExecutorService backgroundExecutor;
+    private Listener listener;
+    private boolean stopped = false;
+    private volatile boolean paused = false;
+
+    // Wraps the current camera frame, analyzer thread only
+    private final ProxyFrame frame = new ProxyFrame();
+    private final FrameGapCounter gapCounter = new FrameGapCounter();
+    private final PerformanceStats stats = PerformanceStats.getInstance();
+
+    public CameraFrameSource(AppCompatActivity activity, PreviewView previewView, Size targetResolution) {
+        this.activity = activity;
+        this.previewView = previewView;
+        this.targetResolution = targetResolution;
+    }
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+        backgroundExecutor = Executors.newSingleThreadExecutor();
+        cameraProviderFuture = ProcessCameraProvider.getInstance(activity);
+
+        cameraProviderFuture.addListener(() -> {
+            try {
+                cameraProvider = cameraProviderFuture.get();
+                if (!stopped) {
+                    bindPreview(cameraProvider);
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                Log.e(TAG, "Camera provider initialization failed", e);
+            }
+        }, ContextCompat.getMainExecutor(activity));
+    }
+
+    @Override
+    public void setTargetResolution(Size resolution) {
+        targetResolution = resolution;
+        if (cameraProvider == null || imageAnalysis == null || stopped) return;
+
+        Log.i(TAG, "Switching analysis resolution to " + resolution.getWidth() + "x" + resolution.getHeight());
+        // The rebind pauses the frames, that gap lost nothing
+        gapCounter.reset();
+        cameraProvider.unbind(imageAnalysis);
+        imageAnalysis = buildImageAnalysis();
+        cameraProvider.bindToLifecycle(activity, cameraSelector, imageAnalysis);
+    }
+
+    /**
+     * CameraX stops the camera itself once the activity is stopped; frames a paused but still
+     * visible screen receives are dropped as they arrive, the session stays open so resuming
+     * costs nothing.
+     */
+    @Override
+    public void pause() {
+        paused = true;
+    }
+
+    @Override
+    public void resume() {
+        gapCounter.reset();
+        paused = false;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        if (backgroundExecutor != null) {
+            backgroundExecutor.shutdown();
+        }
+        if (cameraProvider != null) {
+            cameraProvider.unbindAll();
+        }
+    }
+
+    @Override
+    public boolean awaitStopped(long timeoutMs) {
+        if (backgroundExecutor == null) return true;
+        try {
+            return backgroundExecutor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void bindPreview(ProcessCameraProvider cameraProvider) {
+        Preview preview = new Preview.Builder().build();
+        preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+        cameraSelector = new CameraSelector.Builder()
+                .requireLensFacing(CameraSelector.LENS_FACING_FRONT)
+                .build();
+
+        imageAnalysis = buildImageAnalysis();
+
+        cameraProvider.unbindAll();
+        cameraProvider.bindToLifecycle(
+                activity,
+                cameraSelector,
+                preview,
+                imageAnalysis
+        );
+    }
+
+    private ImageAnalysis buildImageAnalysis() {
+        ImageAnalysis analysis = new ImageAnalysis.Builder()
+                .setTargetResolution(targetResolution)
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_RGBA_8888)
+                .build();
+
+        analysis.setAnalyzer(backgroundExecutor, this::analyze);
+        return analysis;
+    }
+
+    private void analyze(ImageProxy imageProxy) {
+        int missed = gapCounter.onFrame(imageProxy.getImageInfo().getTimestamp());
+        if (missed > 0) {
+            stats.add(PerformanceStats.Counter.FRAMES_DROPPED, missed);
+        }
+        if (paused) {
+            imageProxy.close();
+            return;
+        }
+        frame.imageProxy = imageProxy;
+        listener.onFrame(frame);
+    }
+
+    private static final class ProxyFrame implements Frame {
+        ImageProxy imageProxy;
+
+        @Override
+        public int getWidth() {
+            return imageProxy.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return imageProxy.getHeight();
+        }
+
+        @Override
+        public ByteBuffer getBuffer() {
+            return imageProxy.getPlanes()[0].getBuffer();
+        }
+
+        @Override
+        public int getRowStride() {
+            return imageProxy.getPlanes()[0].getRowStride();
+        }
+
+        @Override
+        public long getTimestampNanos() {
+            return imageProxy.getImageInfo().getTimestamp();
+        }
+
+        @Override
+        public int getRotationDegrees() {
+            return imageProxy.getImageInfo().getRotationDegrees();
+        }
+
+        @Override
+        public void close() {
+            imageProxy.close();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pushes game state changes to JavaScript through a kept Cordova callback.
+ *
+ * Snapshots are compared with the last state seen and only changes become events: the number
+ * of hands in view, a player's stabilized gesture and the round result. Events are queued for
+ * {@code batchDelayMs}, so changes that land on consecutive frames (a gesture and the outcome
+ * it decides) travel together, and sent as one JSON array at most {@code maxBatchesPerSecond}
+ * times per second. A newer event of the same kind replaces a queued one, so the bridge
+ * carries state changes, never frames.
+ */
+public class DetectionEventStream {
+
+    private static final String TAG = "DetectionEventStream";
+
+    public static final int DEFAULT_MAX_BATCHES_PER_SECOND = 4;
+    public static final int DEFAULT_BATCH_DELAY_MS = 100;
+
+    private static final DetectionEventStream INSTANCE = new DetectionEventStream();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+
+    // Guarded by this
+    private CallbackContext callback;
+    private long minIntervalMs = 1000 / DEFAULT_MAX_BATCHES_PER_SECOND;
+    private long batchDelayMs = DEFAULT_BATCH_DELAY_MS;
+    private final List<JSONObject> pending = new ArrayList<>();
+    private final List<String> pendingKeys = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private long lastFlushMs = 0;
+
+    // Last state turned into events
+    private int lastHandCount = 0;
+    private RPSGesture[] lastPlayers = new RPSGesture[0];
+    private Resolution lastResolution = Resolution.UNDECIDED;
+    private int lastWinnerMask = 0;
+
+    private volatile boolean active = false;
+
+    public static DetectionEventStream getInstance() {
+        return INSTANCE;
+    }
+
+    private DetectionEventStream() {
+    }
+
+    /**
+     * Starts sending events to {@code callbackContext}, replacing any previous listener.
+     */
+    public synchronized void start(CallbackContext callbackContext, int maxBatchesPerSecond, int batchDelayMs) {
+        if (callback != null) {
+            endCallback(callback);
+        }
+        callback = callbackContext;
+        minIntervalMs = 1000 / Math.max(1, Math.min(60, maxBatchesPerSecond));
+        this.batchDelayMs = Math.max(0, batchDelayMs);
+        pending.clear();
+        pendingKeys.clear();
+        active = true;
+    }
+
+    /**
+     * Sends what is still queued and releases the listener.
+     */
+    public synchronized void stop() {
+        if (callback == null) return;
+
+        active = false;
+        flush();
+        endCallback(callback);
+        callback = null;
+        mainHandler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void onSessionStarted() {
+        if (!active) return;
+        synchronized (this) {
+            lastHandCount = 0;
+            Arrays.fill(lastPlayers, RPSGesture.UNKNOWN);
+            lastResolution = Resolution.UNDECIDED;
+            lastWinnerMask = 0;
+            enqueue("sessionStarted", event("sessionStarted"));
+        }
+    }
+
+    public void onSessionEnded() {
+        if (!active) return;
+        synchronized (this) {
+            enqueue("sessionEnded", event("sessionEnded"));
+        }
+    }
+
+    /**
+     * Turns the differences between {@code snapshot} and the previous one into events. Called
+     * from the thread that processes results; returns quickly when nothing changed.
+     */
+    public void onSnapshot(DetectionSnapshot snapshot) {
+        if (!active) return;
+
+        synchronized (this) {
+            int players = snapshot.getPlayerCount();
+            if (lastPlayers.length != players) {
+                lastPlayers = new RPSGesture[players];
+                Arrays.fill(lastPlayers, RPSGesture.UNKNOWN);
+            }
+
+            int handCount = snapshot.getHandCount();
+            boolean resultChanged = snapshot.resolution != lastResolution || snapshot.winnerMask != lastWinnerMask;
+            try {
+                if (handCount != lastHandCount) {
+                    enqueue("hands", event("hands").put("count", handCount));
+                }
+                for (int p = 0; p < players; p++) {
+                    RPSGesture gesture = snapshot.getPlayer(p);
+                    if (gesture != lastPlayers[p]) {
+                        enqueue("gesture" + (p + 1), gestureEvent(p + 1, gesture));
+                        lastPlayers[p] = gesture;
+                    }
+                }
+                if (resultChanged) {
+                    enqueue("outcome", resultEvent("outcome", snapshot.resolution, snapshot.winnerMask, lastPlayers,
+                            players));
+                }
+            } catch (JSONException e) {
+                Log.e(TAG, "Error building event: " + e.getMessage());
+            }
+
+            lastHandCount = handCount;
+            lastResolution = snapshot.resolution;
+            lastWinnerMask = snapshot.winnerMask;
+        }
+    }
+
+    /**
+     * Reports a decided round. Called on the main thread.
+     *
+     * @param matchWinners players who won the match with this round (bit per player), 0 otherwise
+     */
+    public void onRoundResult(int round, RPSGesture[] throwsMade, Resolution resolution, int winnerMask,
+                              int[] wins, int matchWinners) {
+        if (!active) return;
+
+        synchronized (this) {
+            try {
+                JSONArray score = new JSONArray();
+                StringBuilder key = new StringBuilder("round").append(round);
+                for (int w : wins) {
+                    score.put(w);
+                    key.append(':').append(w);
+                }
+                JSONObject event = resultEvent("round", resolution, winnerMask, throwsMade, throwsMade.length)
+                        .put("round", round)
+                        .put("score", score)
+                        .put("matchWinners", playerNumbers(matchWinners, wins.length));
+                // Every round counts, never replace one the listener has not seen
+                enqueue(key.toString(), event);
+            } catch (JSONException e) {
+                Log.e(TAG, "Error building event: " + e.getMessage());
+            }
+        }
+    }
+
+    private void enqueue(String key, JSONObject event) {
+        int existing = pendingKeys.indexOf(key);
+        if (existing >= 0) {
+            // Only the latest state matters, drop the one the listener has not seen yet
+            pending.remove(existing);
+            pendingKeys.remove(existing);
+        }
+        pending.add(event);
+        pendingKeys.add(key);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            long delay = Math.max(batchDelayMs, lastFlushMs + minIntervalMs - SystemClock.uptimeMillis());
+            mainHandler.postDelayed(flushRunnable, delay);
+        }
+    }
+
+    private synchronized void flush() {
+        flushScheduled = false;
+        if (callback == null || pending.isEmpty()) return;
+
+        JSONArray batch = new JSONArray();
+        for (JSONObject event : pending) {
+            batch.put(event);
+        }
+        pending.clear();
+        pendingKeys.clear();
+        lastFlushMs = SystemClock.uptimeMillis();
+
+        PluginResult result = new PluginResult(PluginResult.Status.OK, batch);
+        result.setKeepCallback(true);
+        callback.sendPluginResult(result);
+    }
+
+    private static JSONObject event(String type) {
+        JSONObject event = new JSONObject();
+        try {
+            event.put("type", type);
+            event.put("timestamp", System.currentTimeMillis());
+        } catch (JSONException e) {
+            // Keys are constant and values are never null
+        }
+        return event;
+    }
+
+    private static JSONObject gestureEvent(int player, RPSGesture gesture) throws JSONException {
+        return event("gesture")
+                .put("player", player)
+                .put("gesture", gesture.name())
+                .put("displayName", gesture.getDisplayName());
+    }
+
+    private static JSONObject resultEvent(String type, Resolution resolution, int winnerMask,
+                                          RPSGesture[] gestures, int players) throws JSONException {
+        JSONArray names = new JSONArray();
+        for (int p = 0; p < players; p++) {
+            names.put(gestures[p].name());
+        }
+        // Single winner, for listeners that only handle one
+        int winner = Integer.bitCount(winnerMask) == 1 ? Integer.numberOfTrailingZeros(winnerMask) + 1 : 0;
+        return event(type)
+                .put("resolution", resolution.name())
+                .put("winners", playerNumbers(winnerMask, players))
+                .put("winner", winner)
+                .put("gestures", names);
+    }
+
+    private static JSONArray playerNumbers(int mask, int players) {
+        JSONArray numbers = new JSONArray();
+        for (int p = 0; p < players; p++) {
+            if ((mask & (1 << p)) != 0) {
+                numbers.put(p + 1);
+            }
+        }
+        return numbers;
+    }
+
+    private static void endCallback(CallbackContext callbackContext) {
+        callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.NO_RESULT));
+    }
+}
@@ -0,0 +1,107 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import com.outsystems.plugins.rpsgame.engine.FrameResult;
+import com.outsystems.plugins.rpsgame.engine.GestureEngine;
+import com.outsystems.plugins.rpsgame.engine.RoundController;
+
+/**
+ * Detection state of the game screen that is worth keeping when the screen is recreated for a
+ * configuration change: the engine with its player tracker and stabilizers, the frame buffer
+ * pool, the motion gate, region tracking and the match in progress. The hand landmarker itself
+ * is kept warm by {@link LandmarkerHolder}.
+ *
+ * The outgoing screen parks its session with {@link #retain} and the recreated one, started
+ * with the same intent, picks it up with {@link #takeRetained}. The session is scoped to the
+ * process like the landmarker, so only one is ever parked; memory pressure drops it. Parking
+ * and taking happen on the main thread.
+ *
+ * None of the state is thread safe, and the outgoing screen's frame threads may still be on
+ * their last frame when it is parked. They are waited for in the background, which then calls
+ * {@link #markReady}; the recreated screen skips its frames until {@link #isReady} is true.
+ */
+public class DetectionSession {
+
+    private static DetectionSession retained;
+    private static boolean trimCallbacksRegistered = false;
+
+    final GestureEngine engine;
+    final FrameResult frameResult;
+    final FrameConverter frameConverter;
+    final MotionGate motionGate;         // null when off
+    final RoiTracker roiTracker;         // null when off
+    final RoundController roundController; // null outside round mode
+
+    // Written once the last screen's frame threads are done, after everything they wrote
+    private volatile boolean ready = false;
+
+    DetectionSession(GestureEngine engine, FrameResult frameResult, FrameConverter frameConverter,
+                     MotionGate motionGate, RoiTracker roiTracker, RoundController roundController) {
+        this.engine = engine;
+        this.frameResult = frameResult;
+        this.frameConverter = frameConverter;
+        this.motionGate = motionGate;
+        this.roiTracker = roiTracker;
+        this.roundController = roundController;
+    }
+
+    /**
+     * Called once the frame threads of the screen that parked the session are done with it.
+     */
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Whether frames may use the session. Safe to call from any thread.
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Parks the session of a screen that is being recreated.
+     */
+    static void retain(Context context, DetectionSession session) {
+        retained = session;
+        if (trimCallbacksRegistered) return;
+        trimCallbacksRegistered = true;
+        // Called on the main thread, like everything else here
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_BACKGROUND) {
+                    clearRetained();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                clearRetained();
+            }
+        });
+    }
+
+    /**
+     * Returns the parked session and forgets it, null if there is none.
+     */
+    static DetectionSession takeRetained() {
+        DetectionSession session = retained;
+        retained = null;
+        return session;
+    }
+
+    /**
+     * Drops the parked session, its screen never came back.
+     */
+    static void clearRetained() {
+        retained = null;
+    }
+}
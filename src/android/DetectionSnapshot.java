@@ -0,0 +1,75 @@
+package com.outsystems.plugins.rpsgame;
+
+import com.outsystems.plugins.rpsgame.engine.Outcome;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of one analyzed frame, handed from the analysis thread to the UI.
+ */
+public class DetectionSnapshot {
+    public static final DetectionSnapshot EMPTY = new DetectionSnapshot(
+            Collections.<HandDetection>emptyList(), new RPSGesture[0], Outcome.NONE, Resolution.UNDECIDED, 0,
+            0, 0, 0L);
+
+    public final List<HandDetection> detections; // in player order, never modified
+    private final RPSGesture[] players;          // stabilized gesture per player, never modified
+    public final Outcome outcome;                // players 1 and 2
+    public final Resolution resolution;          // all players
+    public final int winnerMask;                 // bit p set when the player at index p wins
+    public final int presentMask;                // bit p set when the player at index p is in view
+    public final int frameWidth;
+    public final int frameHeight;
+    public final long captureTimeNanos; // camera capture time of the frame, System.nanoTime() base
+    public final long publishTimeNanos; // when the snapshot was handed to the UI
+
+    public DetectionSnapshot(List<HandDetection> detections,
+                             RPSGesture[] players,
+                             Outcome outcome,
+                             Resolution resolution,
+                             int winnerMask,
+                             int frameWidth,
+                             int frameHeight,
+                             long captureTimeNanos) {
+        this.detections = detections;
+        int present = 0;
+        for (int i = 0; i < detections.size(); i++) {
+            present |= 1 << detections.get(i).player;
+        }
+        this.presentMask = present;
+        this.players = players;
+        this.outcome = outcome;
+        this.resolution = resolution;
+        this.winnerMask = winnerMask;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.captureTimeNanos = captureTimeNanos;
+        this.publishTimeNanos = System.nanoTime();
+    }
+
+    public int getHandCount() {
+        return detections.size();
+    }
+
+    public int getPlayerCount() {
+        return players.length;
+    }
+
+    /**
+     * Returns the stabilized gesture of a player (0-based), UNKNOWN if they are not in view.
+     */
+    public RPSGesture getPlayer(int player) {
+        return player < players.length ? players[player] : RPSGesture.UNKNOWN;
+    }
+
+    public boolean isPresent(int player) {
+        return (presentMask & (1 << player)) != 0;
+    }
+
+    public boolean isWinner(int player) {
+        return (winnerMask & (1 << player)) != 0;
+    }
+}
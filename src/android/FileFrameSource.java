@@ -0,0 +1,356 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.Size;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plays recorded frames back through the detection pipeline, for reproducible benchmarks with
+ * no camera and no players in front of it.
+ *
+ * The path is either a directory of images (PNG, JPEG or WebP, played in file name order) or a
+ * raw dump of back-to-back frames of one size, as RGBA_8888 or NV21 (the camera's YUV format).
+ * Frames are read one at a time into a reused buffer, so long dumps do not have to fit in
+ * memory; decoding and YUV conversion happen before a frame is delivered and do not count
+ * towards the pipeline's stages.
+ *
+ * Frames are paced at a fixed rate, or delivered as fast as the listener takes them when the
+ * rate is 0, which measures the pipeline's throughput. Timestamps are taken from
+ * {@link System#nanoTime()} at delivery, like a live camera's.
+ */
+public class FileFrameSource implements FrameSource {
+
+    private static final String TAG = "FileFrameSource";
+
+    public static final String FORMAT_RGBA = "rgba";
+    public static final String FORMAT_NV21 = "nv21";
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final String[] IMAGE_EXTENSIONS = {".png", ".jpg", ".jpeg", ".webp"};
+
+    private final File path;
+    private final String format;
+    private final int width;
+    private final int height;
+    private final float fps;
+    private final int loops;
+    private final int rotationDegrees;
+
+    private Thread thread;
+    private volatile boolean running = false;
+    private boolean paused = false; // guarded by this
+
+    // Playback thread only
+    private final BufferFrame frame = new BufferFrame();
+    private ByteBuffer rawBuffer;      // one NV21 frame as read from the dump
+    private Bitmap bitmap;             // decoded image, reused while the size stays the same
+
+    /**
+     * @param format          {@link #FORMAT_RGBA} or {@link #FORMAT_NV21}, for raw dumps only
+     * @param width           frame width of a raw dump, ignored for images
+     * @param height          frame height of a raw dump, ignored for images
+     * @param fps             frames per second, 0 for as fast as they are taken
+     * @param loops           times to play the frames, 0 to repeat until stopped
+     * @param rotationDegrees clockwise rotation that makes the frames upright
+     */
+    public FileFrameSource(File path, String format, int width, int height, float fps, int loops,
+                           int rotationDegrees) {
+        this.path = path;
+        this.format = format == null ? FORMAT_RGBA : format.toLowerCase(Locale.ROOT);
+        this.width = width;
+        this.height = height;
+        this.fps = Math.max(0f, fps);
+        this.loops = Math.max(0, loops);
+        this.rotationDegrees = rotationDegrees;
+    }
+
+    @Override
+    public void start(Listener listener) {
+        running = true;
+        thread = new Thread(() -> play(listener), TAG);
+        thread.start();
+    }
+
+    @Override
+    public void setTargetResolution(Size resolution) {
+        // Recorded frames have the size they were recorded at
+    }
+
+    /**
+     * Playback waits before its next frame and continues from there, the clock restarts with it.
+     */
+    @Override
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    @Override
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean awaitStopped(long timeoutMs) {
+        if (thread == null) return true;
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    private void play(Listener listener) {
+        long intervalNanos = fps > 0f ? (long) (1_000_000_000L / fps) : 0;
+        long nextFrameNanos = System.nanoTime();
+        int played = 0;
+
+        try {
+            List<File> images = path.isDirectory() ? listImages(path) : null;
+            if (images != null && images.isEmpty()) {
+                throw new IOException("No images in " + path);
+            }
+            try (FileChannel dump = images == null ? new FileInputStream(path).getChannel() : null) {
+                int count = images != null ? images.size() : rawFrameCount(dump);
+                Log.i(TAG, "Playing " + count + " frames from " + path
+                        + (intervalNanos > 0 ? " at " + fps + " fps" : " unthrottled"));
+
+                for (int loop = 0; running && (loops == 0 || loop < loops); loop++) {
+                    for (int i = 0; running && i < count; i++) {
+                        if (images != null) {
+                            decodeImage(images.get(i));
+                        } else {
+                            readRawFrame(dump, i);
+                        }
+
+                        if (awaitResume()) {
+                            nextFrameNanos = System.nanoTime();
+                        }
+
+                        if (intervalNanos > 0) {
+                            long waitNanos = nextFrameNanos - System.nanoTime();
+                            if (waitNanos > 0) {
+                                Thread.sleep(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+                            }
+                            // A slow frame delays the ones after it rather than causing a burst
+                            nextFrameNanos = Math.max(nextFrameNanos, System.nanoTime() - intervalNanos)
+                                    + intervalNanos;
+                        }
+
+                        frame.timestampNanos = Math.max(frame.timestampNanos + 1, System.nanoTime());
+                        listener.onFrame(frame);
+                        played++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Frame playback failed", e);
+        } finally {
+            if (bitmap != null) {
+                bitmap.recycle();
+                bitmap = null;
+            }
+            Log.i(TAG, "Played " + played + " frames");
+            listener.onEnd();
+        }
+    }
+
+    /**
+     * Blocks while paused. Returns true if it did, so pacing can restart.
+     */
+    private synchronized boolean awaitResume() throws InterruptedException {
+        if (!paused) return false;
+        while (paused && running) {
+            wait();
+        }
+        return true;
+    }
+
+    private static List<File> listImages(File directory) {
+        List<File> images = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) return images;
+
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            for (String extension : IMAGE_EXTENSIONS) {
+                if (name.endsWith(extension)) {
+                    images.add(file);
+                    break;
+                }
+            }
+        }
+        return images;
+    }
+
+    private void decodeImage(File file) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        options.inBitmap = bitmap;
+        Bitmap decoded;
+        try {
+            decoded = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        } catch (IllegalArgumentException e) {
+            // Larger than the bitmap being reused
+            options.inBitmap = null;
+            decoded = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        }
+        if (decoded == null) {
+            throw new IOException("Cannot decode " + file);
+        }
+        bitmap = decoded;
+
+        // ARGB_8888 bitmaps keep their pixels in RGBA byte order
+        ByteBuffer pixels = frame.prepare(bitmap.getWidth(), bitmap.getHeight());
+        bitmap.copyPixelsToBuffer(pixels);
+        pixels.rewind();
+    }
+
+    private int rawFrameCount(FileChannel dump) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IOException("A raw frame dump needs the frame width and height");
+        }
+        if (!FORMAT_RGBA.equals(format) && !FORMAT_NV21.equals(format)) {
+            throw new IOException("Unsupported raw frame format: " + format);
+        }
+        long count = dump.size() / rawFrameBytes();
+        if (count == 0) {
+            throw new IOException("Dump is shorter than one frame: " + path);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, count);
+    }
+
+    private int rawFrameBytes() {
+        return FORMAT_NV21.equals(format) ? width * height * 3 / 2 : width * height * BYTES_PER_PIXEL;
+    }
+
+    private void readRawFrame(FileChannel dump, int index) throws IOException {
+        ByteBuffer pixels = frame.prepare(width, height);
+        ByteBuffer target = pixels;
+        if (FORMAT_NV21.equals(format)) {
+            if (rawBuffer == null) {
+                rawBuffer = ByteBuffer.allocateDirect(rawFrameBytes());
+            }
+            target = rawBuffer;
+            target.clear();
+        }
+
+        long position = (long) index * rawFrameBytes();
+        while (target.hasRemaining()) {
+            if (dump.read(target, position + target.position()) < 0) {
+                throw new IOException("Unexpected end of " + path);
+            }
+        }
+        target.rewind();
+
+        if (target != pixels) {
+            nv21ToRgba(target, width, height, pixels);
+        }
+    }
+
+    /**
+     * Converts with the BT.601 limited range coefficients the camera uses, in fixed point.
+     */
+    private static void nv21ToRgba(ByteBuffer nv21, int width, int height, ByteBuffer rgba) {
+        int chromaStart = width * height;
+        for (int y = 0; y < height; y++) {
+            int chromaRow = chromaStart + (y >> 1) * width;
+            for (int x = 0; x < width; x++) {
+                int luma = Math.max(0, (nv21.get(y * width + x) & 0xFF) - 16) * 1192;
+                int chroma = chromaRow + (x & ~1);
+                int v = (nv21.get(chroma) & 0xFF) - 128;
+                int u = (nv21.get(chroma + 1) & 0xFF) - 128;
+
+                int r = (luma + 1634 * v) >> 10;
+                int g = (luma - 833 * v - 400 * u) >> 10;
+                int b = (luma + 2066 * u) >> 10;
+                rgba.put((byte) Math.max(0, Math.min(255, r)));
+                rgba.put((byte) Math.max(0, Math.min(255, g)));
+                rgba.put((byte) Math.max(0, Math.min(255, b)));
+                rgba.put((byte) 0xFF);
+            }
+        }
+        rgba.rewind();
+    }
+
+    /**
+     * The frame handed to the listener, backed by one direct buffer reused while the size stays
+     * the same. Closing it is a no-op, the pipeline copies the pixels before it returns.
+     */
+    private final class BufferFrame implements Frame {
+        private ByteBuffer pixels;
+        private int frameWidth;
+        private int frameHeight;
+        long timestampNanos;
+
+        ByteBuffer prepare(int width, int height) {
+            int bytes = width * height * BYTES_PER_PIXEL;
+            if (pixels == null || pixels.capacity() != bytes) {
+                pixels = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+            }
+            frameWidth = width;
+            frameHeight = height;
+            pixels.clear();
+            return pixels;
+        }
+
+        @Override
+        public int getWidth() {
+            return frameWidth;
+        }
+
+        @Override
+        public int getHeight() {
+            return frameHeight;
+        }
+
+        @Override
+        public ByteBuffer getBuffer() {
+            return pixels;
+        }
+
+        @Override
+        public int getRowStride() {
+            return frameWidth * BYTES_PER_PIXEL;
+        }
+
+        @Override
+        public long getTimestampNanos() {
+            return timestampNanos;
+        }
+
+        @Override
+        public int getRotationDegrees() {
+            return rotationDegrees;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.util.Log;
+
+import com.google.mediapipe.framework.image.ByteBufferImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Turns RGBA_8888 frames of a {@link FrameSource} into MediaPipe images without a Bitmap per frame.
+ *
+ * Pixels are copied into a small ring of direct buffers that are reused for as long as the
+ * frame size stays the same. MediaPipe copies the pixels into its own packet when a frame is
+ * submitted, so a buffer is free again once the next frame comes around; the extra slot only
+ * covers a frame that is still being handed over. Rotation is never applied to the pixels,
+ * it is passed to MediaPipe through {@link #getProcessingOptions(int)}.
+ *
+ * A frame can also be cropped to a region of the buffer. Crops reuse the same pooled buffers
+ * through a sliced view, so tracking a moving region does not allocate pixel memory either.
+ *
+ * When the image is submitted on another thread (see {@link InferencePipeline}), its buffer is
+ * held until then: {@link #hold(int)} keeps the slot out of rotation until {@link #release(int)}.
+ */
+public class FrameConverter {
+
+    private static final String TAG = "FrameConverter";
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final ByteBuffer[] pool;
+    private final AtomicIntegerArray held;
+    private int nextSlot = 0;
+    private int lastSlot = -1;
+
+    private final ImageProcessingOptions[] rotationOptions = new ImageProcessingOptions[4];
+    private final PerformanceStats stats = PerformanceStats.getInstance();
+
+    public FrameConverter() {
+        this(DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param poolSize buffers in rotation, one more than the images that can be held at once
+     */
+    public FrameConverter(int poolSize) {
+        pool = new ByteBuffer[poolSize];
+        held = new AtomicIntegerArray(poolSize);
+    }
+
+    /**
+     * Copies the pixels of the given frame into a pooled buffer. The caller still owns the
+     * frame and may close it as soon as this returns.
+     */
+    public MPImage convert(FrameSource.Frame frame) {
+        return convert(frame, 0, 0, frame.getWidth(), frame.getHeight());
+    }
+
+    /**
+     * Copies a region of the frame, given in buffer pixels, into a pooled buffer.
+     */
+    public MPImage convert(FrameSource.Frame frame, int cropLeft, int cropTop, int cropWidth, int cropHeight) {
+        int frameBytes = frame.getWidth() * frame.getHeight() * BYTES_PER_PIXEL;
+        int cropBytes = cropWidth * cropHeight * BYTES_PER_PIXEL;
+
+        ByteBuffer target = acquire(frameBytes);
+        if (cropBytes != frameBytes) {
+            // MediaPipe expects the buffer to hold exactly one image, hand it a view of the crop
+            target.limit(cropBytes);
+            target = target.slice();
+        }
+
+        copyPlane(frame.getBuffer(), frame.getRowStride(), cropLeft, cropTop, cropWidth, cropHeight, target);
+
+        return new ByteBufferImageBuilder(target, cropWidth, cropHeight, MPImage.IMAGE_FORMAT_RGBA).build();
+    }
+
+    /**
+     * Converts a normalized buffer region to pixels, aligned to even coordinates.
+     *
+     * @param out receives left, top, width and height in pixels
+     */
+    public static void toPixelRegion(float[] region, int width, int height, int[] out) {
+        int left = Math.max(0, (int) (region[0] * width) & ~1);
+        int top = Math.max(0, (int) (region[1] * height) & ~1);
+        int right = Math.min(width, ((int) Math.ceil(region[2] * width) + 1) & ~1);
+        int bottom = Math.min(height, ((int) Math.ceil(region[3] * height) + 1) & ~1);
+
+        out[0] = left;
+        out[1] = top;
+        out[2] = Math.max(2, right - left);
+        out[3] = Math.max(2, bottom - top);
+    }
+
+    /**
+     * Returns the (cached) processing options that tell MediaPipe how the frame is rotated.
+     */
+    public ImageProcessingOptions getProcessingOptions(int rotationDegrees) {
+        int index = ((rotationDegrees % 360 + 360) % 360) / 90;
+        ImageProcessingOptions options = rotationOptions[index];
+        if (options == null) {
+            options = ImageProcessingOptions.builder()
+                    .setRotationDegrees(index * 90)
+                    .build();
+            rotationOptions[index] = options;
+        }
+        return options;
+    }
+
+    /**
+     * Returns the pool slot of the last converted image, for {@link #hold(int)}.
+     */
+    public int getLastSlot() {
+        return lastSlot;
+    }
+
+    /**
+     * Keeps a slot's buffer from being reused until {@link #release(int)}, while its image waits
+     * to be submitted. Called on the converting thread right after the conversion.
+     */
+    public void hold(int slot) {
+        held.set(slot, 1);
+    }
+
+    /**
+     * Returns a held slot to the rotation. Safe to call from any thread.
+     */
+    public void release(int slot) {
+        held.set(slot, 0);
+    }
+
+    /**
+     * Drops the pooled buffers that no image is waiting on; the next frames allocate them again.
+     * Called from the main thread under memory pressure while no frames are delivered.
+     */
+    public void trim() {
+        synchronized (pool) {
+            long freed = 0;
+            for (int i = 0; i < pool.length; i++) {
+                if (pool[i] != null && held.get(i) == 0) {
+                    freed += pool[i].capacity();
+                    pool[i] = null;
+                }
+            }
+            Log.d(TAG, "Trimmed " + freed + " bytes of frame buffers");
+        }
+    }
+
+    private ByteBuffer acquire(int capacity) {
+        ByteBuffer buffer;
+        synchronized (pool) { // uncontended, only trim() competes
+            // Held slots are skipped, the pool is sized so that one is always free
+            for (int i = 0; i < pool.length && held.get(nextSlot) != 0; i++) {
+                nextSlot = (nextSlot + 1) % pool.length;
+            }
+            buffer = pool[nextSlot];
+            if (buffer == null || buffer.capacity() != capacity) {
+                // Only happens for the first frames, after a resolution change or a trim
+                buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+                pool[nextSlot] = buffer;
+                // Reported so the steady state can be checked to stay at zero
+                stats.increment(PerformanceStats.Counter.FRAME_BUFFERS_ALLOCATED);
+                stats.add(PerformanceStats.Counter.FRAME_BUFFER_BYTES, capacity);
+                Log.d(TAG, "Allocated frame buffer of " + capacity + " bytes (slot " + nextSlot + ")");
+            }
+            lastSlot = nextSlot;
+            nextSlot = (nextSlot + 1) % pool.length;
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void copyPlane(ByteBuffer source, int rowStride,
+                                  int left, int top, int width, int height, ByteBuffer target) {
+        int rowBytes = width * BYTES_PER_PIXEL;
+        int offset = top * rowStride + left * BYTES_PER_PIXEL;
+        source.rewind();
+
+        if (rowStride == rowBytes && offset == 0) {
+            // Tightly packed full width, copy the plane in one go
+            source.limit(rowBytes * height);
+            target.put(source);
+        } else {
+            // Padded rows or a crop, copy row by row and skip the rest
+            for (int row = 0; row < height; row++) {
+                int start = offset + row * rowStride;
+                source.limit(start + rowBytes);
+                source.position(start);
+                target.put(source);
+            }
+        }
+
+        source.clear();
+        target.rewind();
+    }
+}
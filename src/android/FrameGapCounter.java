@@ -0,0 +1,68 @@
+package com.outsystems.plugins.rpsgame;
+
+/**
+ * Estimates how many camera frames never reached the analyzer, from gaps in the timestamps of
+ * the frames that did.
+ *
+ * With a keep-only-latest backpressure strategy the camera silently replaces a frame the
+ * analyzer has not taken yet, and nothing reports it. The camera's frame interval is taken as
+ * the shortest gap among the last {@link #WINDOW} frames, so it follows the sensor when low
+ * light lowers its frame rate; a gap of about n intervals then means n - 1 frames were lost.
+ * An analyzer that never keeps up for a whole window makes the interval look longer than it
+ * is, so the count is a lower bound. Gaps over {@link #MAX_GAP_NANOS} are a stalled or
+ * restarted camera, not lost frames.
+ *
+ * Analyzer thread only, except for {@link #reset()}.
+ */
+public class FrameGapCounter {
+
+    static final int WINDOW = 32;
+    static final long MAX_GAP_NANOS = 1_000_000_000L;
+
+    // A gap this many intervals long or more has lost frames in it
+    private static final double MISSED_FACTOR = 1.5;
+
+    private final long[] gaps = new long[WINDOW];
+    private int gapCount = 0;
+    private int head = 0;
+    private long lastTimestampNanos = -1;
+    private volatile boolean resetRequested = false;
+
+    /**
+     * Takes the timestamp of a delivered frame.
+     *
+     * @return the frames estimated lost since the previous one
+     */
+    public int onFrame(long timestampNanos) {
+        if (resetRequested) {
+            resetRequested = false;
+            gapCount = 0;
+            head = 0;
+            lastTimestampNanos = -1;
+        }
+
+        long gap = timestampNanos - lastTimestampNanos;
+        boolean first = lastTimestampNanos < 0;
+        lastTimestampNanos = timestampNanos;
+        if (first || gap <= 0 || gap > MAX_GAP_NANOS) return 0;
+
+        gaps[head] = gap;
+        head = (head + 1) % WINDOW;
+        gapCount = Math.min(gapCount + 1, WINDOW);
+
+        long interval = Long.MAX_VALUE;
+        for (int i = 0; i < gapCount; i++) {
+            interval = Math.min(interval, gaps[i]);
+        }
+        if (gap < interval * MISSED_FACTOR) return 0;
+        return (int) Math.round((double) gap / interval) - 1;
+    }
+
+    /**
+     * Forgets the timestamps seen so far, e.g. after the camera was paused or rebound. Safe to
+     * call from any thread, applied with the next frame.
+     */
+    public void reset() {
+        resetRequested = true;
+    }
+}
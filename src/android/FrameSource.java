@@ -0,0 +1,85 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.util.Size;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Where the detection screen's frames come from: the front camera ({@link CameraFrameSource})
+ * or recorded frames played back from storage ({@link FileFrameSource}), so the whole
+ * conversion, inference and processing pipeline can run without a camera or players.
+ *
+ * Frames are RGBA_8888 and delivered one at a time on the source's own thread.
+ */
+public interface FrameSource {
+
+    /**
+     * One frame, valid until {@link #close()}. Sources may reuse the object for the next frame.
+     */
+    interface Frame {
+        int getWidth();
+
+        int getHeight();
+
+        /** RGBA pixels, {@link #getRowStride()} bytes per row. */
+        ByteBuffer getBuffer();
+
+        int getRowStride();
+
+        /** Capture time in nanoseconds, monotonic. */
+        long getTimestampNanos();
+
+        /** Clockwise rotation that makes the frame upright. */
+        int getRotationDegrees();
+
+        void close();
+    }
+
+    interface Listener {
+        /**
+         * Handles a frame. The listener owns it and must close it; the next frame is not
+         * delivered before this returns.
+         */
+        void onFrame(Frame frame);
+
+        /**
+         * No more frames will come. Called on the source's thread.
+         */
+        void onEnd();
+    }
+
+    /**
+     * Starts delivering frames. Called on the main thread.
+     */
+    void start(Listener listener);
+
+    /**
+     * Asks for frames of about this size from now on. A hint, sources with a fixed size ignore it.
+     * Called on the main thread.
+     */
+    void setTargetResolution(Size resolution);
+
+    /**
+     * Holds frames back until {@link #resume()}, keeping the source ready to continue at once.
+     * Called on the main thread.
+     */
+    void pause();
+
+    /**
+     * Delivers frames again after {@link #pause()}. Called on the main thread.
+     */
+    void resume();
+
+    /**
+     * Stops delivering frames and releases the source. Called on the main thread; a frame
+     * being delivered may still be in the listener when this returns.
+     */
+    void stop();
+
+    /**
+     * Waits, after {@link #stop()}, until the listener is done with the last frame.
+     *
+     * @return false if it still was not after {@code timeoutMs}
+     */
+    boolean awaitStopped(long timeoutMs);
+}
@@ -0,0 +1,225 @@
+package com.outsystems.plugins.rpsgame;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide ring buffer of per-frame pipeline events, for debugging field issues.
+ *
+ * Events are fixed-size and primitive: a stage, the frame's timestamp as its id, start and
+ * duration nanos, the recording thread, a player, a gesture or resolution ordinal and four
+ * floats (a bounding box, or a count and mask). Recording claims a slot with one atomic
+ * increment and fills preallocated arrays, so it never allocates or locks; while tracing is off
+ * it is a single volatile read and the arrays are not even allocated.
+ *
+ * {@link #dump} writes the buffer in the Chrome trace event JSON format, which Perfetto and
+ * chrome://tracing open directly. Timestamps stay in the {@link System#nanoTime()} time base.
+ */
+public class FrameTrace {
+
+    public enum Stage {
+        FRAME_SKIPPED("frameSkipped"), // left out by the inference scheduler
+        CONVERT("convert"),            // camera frame copied into a MediaPipe image; value = 1 if cropped
+        PROCESS("process"),            // landmarks to snapshot; a = hands
+        PLAYER("player"),              // player number, value = gesture, a..d = box left, top, right, bottom
+        OUTCOME("outcome"),            // decided live outcome; value = resolution, a = winner mask
+        ROUND("round"),                // countdown round; value = resolution, a = round, b = winner mask
+        UI("ui");                      // snapshot applied on screen; a = hands
+
+        final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int MAX_CAPACITY = 1 << 16;
+
+    private static final int ARGS = 4;
+    private static final Stage[] STAGES = Stage.values();
+
+    private static final FrameTrace INSTANCE = new FrameTrace();
+
+    private volatile boolean enabled = false;
+    private volatile Buffer buffer;
+
+    /**
+     * One generation of preallocated event storage. Replaced, never resized, so writers that
+     * still hold the previous one finish into it harmlessly.
+     */
+    private static final class Buffer {
+        final int mask;
+        final AtomicLong cursor = new AtomicLong();
+        // Sequence number + 1 of the event in each slot, published after its fields
+        final AtomicLongArray committed;
+        final long[] startNanos;
+        final long[] durationNanos;
+        final long[] frameIds;
+        final long[] threadIds;
+        final int[] headers; // stage | player << 8 | value << 16
+        final float[] args;
+
+        Buffer(int capacity) {
+            mask = capacity - 1;
+            committed = new AtomicLongArray(capacity);
+            startNanos = new long[capacity];
+            durationNanos = new long[capacity];
+            frameIds = new long[capacity];
+            threadIds = new long[capacity];
+            headers = new int[capacity];
+            args = new float[capacity * ARGS];
+        }
+    }
+
+    public static FrameTrace getInstance() {
+        return INSTANCE;
+    }
+
+    private FrameTrace() {
+    }
+
+    /**
+     * Starts recording into a buffer of {@code capacity} events, rounded up to a power of two.
+     * A buffer of a different size replaces the previous one and its events.
+     */
+    public synchronized void enable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(256, Math.min(MAX_CAPACITY, capacity)) * 2 - 1);
+        if (buffer == null || buffer.mask + 1 != size) {
+            buffer = new Buffer(size);
+        }
+        enabled = true;
+    }
+
+    /**
+     * Stops recording. The buffer is kept for {@link #dump}.
+     */
+    public synchronized void disable() {
+        enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a point in time.
+     */
+    public void instant(Stage stage, long frameId, int player, int value, float a, float b, float c, float d) {
+        if (!enabled) return;
+        record(stage, frameId, System.nanoTime(), 0, player, value, a, b, c, d);
+    }
+
+    /**
+     * Records a stage that started at {@code startNanos}, a {@link System#nanoTime()} value, and
+     * ends now.
+     */
+    public void since(Stage stage, long frameId, long startNanos, int value, float a) {
+        if (!enabled) return;
+        record(stage, frameId, startNanos, System.nanoTime() - startNanos, 0, value, a, 0f, 0f, 0f);
+    }
+
+    private void record(Stage stage, long frameId, long startNanos, long durationNanos, int player, int value,
+                        float a, float b, float c, float d) {
+        Buffer buf = buffer;
+        long seq = buf.cursor.getAndIncrement();
+        int slot = (int) (seq & buf.mask);
+
+        // Marks the slot as being written, a dump skips it until the new sequence is published
+        buf.committed.lazySet(slot, 0);
+        buf.startNanos[slot] = startNanos;
+        buf.durationNanos[slot] = durationNanos;
+        buf.frameIds[slot] = frameId;
+        buf.threadIds[slot] = Thread.currentThread().getId();
+        buf.headers[slot] = stage.ordinal() | (player & 0xFF) << 8 | (value & 0xFFFF) << 16;
+        int arg = slot * ARGS;
+        buf.args[arg] = a;
+        buf.args[arg + 1] = b;
+        buf.args[arg + 2] = c;
+        buf.args[arg + 3] = d;
+        buf.committed.set(slot, seq + 1);
+    }
+
+    /**
+     * Writes the buffered events, oldest first, to {@code file} as a Chrome/Perfetto trace and
+     * returns a summary. Recording may continue meanwhile; events overwritten during the dump
+     * are left out. Blocks on the disk, so call it off the main thread.
+     */
+    public JSONObject dump(File file) throws IOException, JSONException {
+        Buffer buf;
+        synchronized (this) {
+            buf = buffer;
+        }
+
+        int written = 0;
+        long end = buf == null ? 0 : buf.cursor.get();
+        long start = buf == null ? 0 : Math.max(0, end - (buf.mask + 1));
+
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8), 64 * 1024)) {
+            out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            StringBuilder line = new StringBuilder(256);
+            for (long seq = start; seq < end; seq++) {
+                int slot = (int) (seq & buf.mask);
+                if (buf.committed.get(slot) != seq + 1) continue;
+
+                line.setLength(0);
+                appendEvent(line, buf, slot);
+                // Re-check, a writer may have lapped the reader while the fields were read
+                if (buf.committed.get(slot) != seq + 1) continue;
+
+                if (written > 0) out.write(",\n");
+                out.append(line);
+                written++;
+            }
+            out.write("\n]}\n");
+        }
+
+        JSONObject summary = new JSONObject();
+        summary.put("path", file.getAbsolutePath());
+        summary.put("events", written);
+        summary.put("overwritten", start);
+        summary.put("enabled", enabled);
+        return summary;
+    }
+
+    private static void appendEvent(StringBuilder out, Buffer buf, int slot) {
+        int header = buf.headers[slot];
+        Stage stage = STAGES[header & 0xFF];
+        int player = (header >>> 8) & 0xFF;
+        int value = header >>> 16;
+        long duration = buf.durationNanos[slot];
+        int arg = slot * ARGS;
+
+        out.append("{\"name\":\"").append(stage.key)
+                .append("\",\"ph\":\"").append(duration > 0 ? 'X' : 'i')
+                .append("\",\"pid\":1,\"tid\":").append(buf.threadIds[slot])
+                .append(",\"ts\":").append(buf.startNanos[slot] / 1000.0);
+        if (duration > 0) {
+            out.append(",\"dur\":").append(duration / 1000.0);
+        } else {
+            out.append(",\"s\":\"t\"");
+        }
+        out.append(",\"args\":{\"frame\":").append(buf.frameIds[slot])
+                .append(",\"player\":").append(player)
+                .append(",\"value\":").append(value);
+        for (int i = 0; i < ARGS; i++) {
+            out.append(",\"").append((char) ('a' + i)).append("\":").append(buf.args[arg + i]);
+        }
+        out.append("}}");
+    }
+}
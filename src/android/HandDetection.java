@@ -2,20 +2,24 @@ package com.outsystems.plugins.rpsgame;
 
 import android.graphics.RectF;
 import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
 import java.util.List;
 
 public class HandDetection {
+    public final int player; // 0-based, stable while the hand is tracked
     public final RPSGesture gesture;
     public final RectF boundingBox;
     public final List<NormalizedLandmark> landmarks;
     public final String handedness;
     public final float confidence;
 
-    public HandDetection(RPSGesture gesture,
+    public HandDetection(int player,
+                         RPSGesture gesture,
                          RectF boundingBox,
                          List<NormalizedLandmark> landmarks,
                          String handedness,
                          float confidence) {
+        this.player = player;
         this.gesture = gesture;
         this.boundingBox = boundingBox;
         this.landmarks = landmarks;
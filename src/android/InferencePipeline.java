@@ -0,0 +1,166 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
+
+/**
+ * Runs IMAGE mode inference on a thread of its own, so the analyzer can convert frame N+1 while
+ * frame N is being inferred.
+ *
+ * The two stages meet in a single preallocated hand-off slot. A converted frame that finds the
+ * slot still full replaces the one waiting there, whose buffer goes straight back to the
+ * {@link FrameConverter}: inference always starts on the newest frame, so pipelining raises the
+ * sustained frame rate without making any frame wait behind an older one. Each stage reports
+ * its occupancy (busy time over wall time) and the slot its drops to {@link PerformanceStats}.
+ *
+ * LIVE_STREAM mode does not need this, MediaPipe already infers those frames on its own thread.
+ */
+public class InferencePipeline {
+
+    private static final String TAG = "InferencePipeline";
+
+    /**
+     * Buffers the converter needs: one being inferred, one waiting in the slot, one being filled.
+     */
+    public static final int CONVERTER_POOL_SIZE = 3;
+
+    public interface Inference {
+        /**
+         * Infers and processes one frame on the inference thread.
+         */
+        void infer(MPImage image, ImageProcessingOptions options, long timestampMs);
+    }
+
+    private final FrameConverter converter;
+    private final Inference inference;
+    private final PerformanceStats stats = PerformanceStats.getInstance();
+    private final Thread thread;
+
+    // The hand-off slot, guarded by this
+    private boolean full = false;
+    private MPImage image;
+    private ImageProcessingOptions options;
+    private long timestampMs;
+    private int bufferSlot;
+    private boolean running = true;
+
+    // Occupancy of the conversion stage, analyzer thread only
+    private long conversionMarkNanos = -1;
+
+    public InferencePipeline(FrameConverter converter, Inference inference) {
+        this.converter = converter;
+        this.inference = inference;
+        thread = new Thread(this::run, "InferencePipeline");
+        thread.start();
+    }
+
+    /**
+     * Hands a converted frame to the inference stage. Called on the analyzer thread right after
+     * the conversion that started at {@code convertStartNanos}; never blocks.
+     */
+    public void submit(MPImage image, ImageProcessingOptions options, long timestampMs, long convertStartNanos) {
+        int slot = converter.getLastSlot();
+        converter.hold(slot);
+
+        synchronized (this) {
+            if (!running) {
+                converter.release(slot);
+                return;
+            }
+            if (full) {
+                // Drop the oldest, the newer frame is the one worth inferring
+                converter.release(bufferSlot);
+                stats.increment(PerformanceStats.Counter.HANDOFF_DROPPED);
+            }
+            this.image = image;
+            this.options = options;
+            this.timestampMs = timestampMs;
+            this.bufferSlot = slot;
+            full = true;
+            notify();
+        }
+
+        long now = System.nanoTime();
+        if (conversionMarkNanos >= 0) {
+            stats.recordOccupancy(PerformanceStats.PipelineStage.CONVERSION, now - convertStartNanos,
+                    now - conversionMarkNanos);
+        }
+        conversionMarkNanos = now;
+    }
+
+    /**
+     * Stops the inference thread after the frame in progress and drops the waiting one.
+     */
+    public void stop() {
+        synchronized (this) {
+            running = false;
+            if (full) {
+                converter.release(bufferSlot);
+                full = false;
+                image = null;
+            }
+            notify();
+        }
+    }
+
+    /**
+     * Waits, after {@link #stop()}, for the frame in progress to finish.
+     *
+     * @return false if it still had not after {@code timeoutMs}
+     */
+    public boolean awaitStopped(long timeoutMs) {
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    private void run() {
+        // Like the analyzer thread; display priority would compete with the UI for the CPU
+        Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+        long markNanos = System.nanoTime();
+
+        while (true) {
+            MPImage frame;
+            ImageProcessingOptions frameOptions;
+            long frameTimestampMs;
+            int slot;
+            synchronized (this) {
+                while (running && !full) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running) return;
+
+                frame = image;
+                frameOptions = options;
+                frameTimestampMs = timestampMs;
+                slot = bufferSlot;
+                image = null;
+                full = false;
+            }
+
+            long startNanos = System.nanoTime();
+            try {
+                inference.infer(frame, frameOptions, frameTimestampMs);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Inference failed", e);
+            } finally {
+                converter.release(slot);
+            }
+
+            long now = System.nanoTime();
+            stats.recordOccupancy(PerformanceStats.PipelineStage.INFERENCE, now - startNanos, now - markNanos);
+            markNanos = now;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.core.content.ContextCompat;
+
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+
+/**
+ * Decides how often frames go to the hand landmarker and at what resolution they are analyzed.
+ *
+ * The target rate follows the game: a few frames per second while nobody is playing, full rate
+ * while a round is being played and a reduced rate once the result is on screen. On top of that,
+ * thermal status and battery saver scale the rate down and lower the analysis resolution, so a
+ * screen that stays open for hours only spends CPU when something is happening.
+ */
+public class InferenceScheduler {
+
+    private static final String TAG = "InferenceScheduler";
+
+    public enum GameState {
+        IDLE(4),               // no hands in view
+        HANDS_ENTERING(15),    // some players in view, waiting for the others
+        ROUND_IN_PROGRESS(30), // all players in view, gestures not settled yet
+        RESULT_SHOWN(12);      // all gestures settled, winner on screen
+
+        final int targetFps;
+
+        GameState(int targetFps) {
+            this.targetFps = targetFps;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called on the main thread when the analysis resolution should change.
+         */
+        void onAnalysisResolutionChanged(Size resolution);
+    }
+
+    // Pressure levels: none, elevated (warm or battery saver), high (hot)
+    private static final float[] PRESSURE_RATE_FACTOR = {1.0f, 0.6f, 0.35f};
+    private static final Size[] PRESSURE_RESOLUTION = {
+            new Size(640, 480),
+            new Size(480, 360),
+            new Size(320, 240)
+    };
+    private static final int MIN_FPS = 2;
+
+    // Frames arriving slightly early still count, so a 30 fps camera is not cut to 15 fps
+    private static final long INTERVAL_TOLERANCE_NANOS = 5_000_000L;
+
+    private final Context context;
+    private final Listener listener;
+
+    private volatile GameState gameState = GameState.IDLE;
+    private volatile int pressureLevel = 0;
+    private volatile long intervalNanos;
+    private long lastInferenceNanos = Long.MIN_VALUE; // analyzer thread only
+
+    private PowerManager powerManager;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private BroadcastReceiver powerSaveReceiver;
+
+    public InferenceScheduler(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+        updateInterval();
+    }
+
+    /**
+     * Starts listening for thermal and battery saver changes. Call on the main thread.
+     */
+    public void start() {
+        powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager == null) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            thermalListener = status -> updatePressure();
+            powerManager.addThermalStatusListener(ContextCompat.getMainExecutor(context), thermalListener);
+        }
+
+        powerSaveReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                updatePressure();
+            }
+        };
+        context.registerReceiver(powerSaveReceiver, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+
+        updatePressure();
+    }
+
+    /**
+     * Stops listening for system changes. Call on the main thread.
+     */
+    public void stop() {
+        if (powerManager != null && thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            powerManager.removeThermalStatusListener(thermalListener);
+        }
+        thermalListener = null;
+
+        if (powerSaveReceiver != null) {
+            context.unregisterReceiver(powerSaveReceiver);
+            powerSaveReceiver = null;
+        }
+    }
+
+    /**
+     * Returns true if the frame captured at {@code frameTimeNanos} should be analyzed.
+     * Called from the analyzer thread for every camera frame.
+     */
+    public boolean shouldRunInference(long frameTimeNanos) {
+        if (lastInferenceNanos != Long.MIN_VALUE
+                && frameTimeNanos - lastInferenceNanos < intervalNanos - INTERVAL_TOLERANCE_NANOS) {
+            return false;
+        }
+        lastInferenceNanos = frameTimeNanos;
+        return true;
+    }
+
+    /**
+     * Derives the game state from the latest analyzed frame.
+     */
+    public void onSnapshot(DetectionSnapshot snapshot) {
+        GameState state;
+        if (snapshot.getHandCount() == 0) {
+            state = GameState.IDLE;
+        } else if (snapshot.getHandCount() < snapshot.getPlayerCount()) {
+            state = GameState.HANDS_ENTERING;
+        } else if (snapshot.resolution == Resolution.UNDECIDED) {
+            state = GameState.ROUND_IN_PROGRESS;
+        } else {
+            state = GameState.RESULT_SHOWN;
+        }
+        setGameState(state);
+    }
+
+    public void setGameState(GameState state) {
+        if (state != gameState) {
+            gameState = state;
+            updateInterval();
+        }
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public int getPressureLevel() {
+        return pressureLevel;
+    }
+
+    public Size getAnalysisResolution() {
+        return PRESSURE_RESOLUTION[pressureLevel];
+    }
+
+    private void updatePressure() {
+        int thermal = PowerManager.THERMAL_STATUS_NONE;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            thermal = powerManager.getCurrentThermalStatus();
+        }
+        boolean powerSave = powerManager.isPowerSaveMode();
+
+        int level;
+        if (thermal >= PowerManager.THERMAL_STATUS_SEVERE
+                || (thermal >= PowerManager.THERMAL_STATUS_MODERATE && powerSave)) {
+            level = 2;
+        } else if (thermal >= PowerManager.THERMAL_STATUS_MODERATE || powerSave) {
+            level = 1;
+        } else {
+            level = 0;
+        }
+
+        if (level == pressureLevel) return;
+
+        Size previous = PRESSURE_RESOLUTION[pressureLevel];
+        pressureLevel = level;
+        updateInterval();
+        Log.i(TAG, "Pressure level " + level + " (thermal=" + thermal + ", powerSave=" + powerSave + ")");
+
+        if (PRESSURE_RESOLUTION[level] != previous && listener != null) {
+            listener.onAnalysisResolutionChanged(PRESSURE_RESOLUTION[level]);
+        }
+    }
+
+    private void updateInterval() {
+        int fps = Math.max(MIN_FPS, Math.round(gameState.targetFps * PRESSURE_RATE_FACTOR[pressureLevel]));
+        intervalNanos = 1_000_000_000L / fps;
+    }
+}
@@ -0,0 +1,317 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.core.BaseOptions;
+import com.google.mediapipe.tasks.vision.core.RunningMode;
+import com.google.mediapipe.tasks.vision.handlandmarker.HandLandmarker;
+import com.google.mediapipe.tasks.vision.handlandmarker.HandLandmarkerResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps one HandLandmarker alive for the whole process, so opening the game screen again does
+ * not pay for loading the model and building the graph.
+ *
+ * The model is memory-mapped straight from the APK when the asset is stored uncompressed (see
+ * build.gradle) and read into direct memory once otherwise. The landmarker is built on a loader
+ * thread, either ahead of time through {@link #preload} or on the first {@link #acquire}, and is
+ * reference counted: once the last screen releases it, it stays warm for {@link #KEEP_ALIVE_MS}
+ * before it is closed, or as soon as the system asks a backgrounded app to trim its memory.
+ * Building and closing happen only on the loader thread and outside the holder's lock, so the
+ * main thread's calls never wait for a model load, even while a preload is running.
+ *
+ * Running mode and hand count are fixed at creation; asking for a different configuration
+ * rebuilds the landmarker once nobody uses it. In LIVE_STREAM mode the result listener is fixed
+ * as well, so results are forwarded to whichever screen acquired it last.
+ */
+public class LandmarkerHolder {
+
+    private static final String TAG = "LandmarkerHolder";
+
+    public static final String MODEL_ASSET = "models/hand_landmarker.task";
+    public static final int DEFAULT_NUM_HANDS = 2;
+    public static final int MAX_HANDS = 6;
+    public static final long KEEP_ALIVE_MS = 5 * 60 * 1000;
+
+    public interface ResultListener {
+        void onResult(HandLandmarkerResult result, MPImage input);
+    }
+
+    public interface Callback {
+        /**
+         * Called on the loader thread with the landmarker, or with the error that prevented it.
+         */
+        void onLandmarker(HandLandmarker landmarker, Exception error);
+    }
+
+    private static final LandmarkerHolder INSTANCE = new LandmarkerHolder();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> new Thread(r, "LandmarkerLoader"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable idleClose = this::closeIfIdle;
+    private boolean trimCallbacksRegistered = false; // guarded by this
+
+    private ByteBuffer modelBuffer; // loader thread only
+
+    // Guarded by this. Only the loader thread creates or closes the landmarker.
+    private HandLandmarker landmarker;
+    private boolean landmarkerLiveStream;
+    private int landmarkerNumHands;
+    private int refCount = 0;
+    private long lastTimestampMs = -1;
+
+    private volatile ResultListener listener;
+
+    public static LandmarkerHolder getInstance() {
+        return INSTANCE;
+    }
+
+    private LandmarkerHolder() {
+    }
+
+    /**
+     * Builds the landmarker in the background, if it is not loaded already.
+     *
+     * @param callback notified when loading is done, may be null
+     */
+    public void preload(Context context, boolean liveStream, int numHands, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        registerTrimCallbacks(appContext);
+        loader.execute(() -> {
+            HandLandmarker result = null;
+            Exception error = null;
+            try {
+                result = load(appContext, liveStream, numHands);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to preload HandLandmarker", e);
+                error = e;
+            }
+            if (callback != null) {
+                callback.onLandmarker(result, error);
+            }
+        });
+    }
+
+    /**
+     * Takes a reference on the landmarker, loading it first if needed. The callback runs on the
+     * loader thread; every successful acquire must be paired with a {@link #release}.
+     */
+    public void acquire(Context context, boolean liveStream, int numHands, ResultListener resultListener,
+                        Callback callback) {
+        Context appContext = context.getApplicationContext();
+        registerTrimCallbacks(appContext);
+        loader.execute(() -> {
+            HandLandmarker result;
+            try {
+                result = load(appContext, liveStream, numHands);
+                // Only this thread creates or closes the landmarker, it cannot go away in between
+                synchronized (this) {
+                    refCount++;
+                    listener = resultListener;
+                    mainHandler.removeCallbacks(idleClose);
+                }
+            } catch (Exception e) {
+                callback.onLandmarker(null, e);
+                return;
+            }
+            callback.onLandmarker(result, null);
+        });
+    }
+
+    /**
+     * Returns true if a landmarker for the given mode and hand count is ready to use.
+     */
+    public synchronized boolean isLoaded(boolean liveStream, int numHands) {
+        return landmarker != null && isConfigured(liveStream, numHands);
+    }
+
+    /**
+     * Returns the last timestamp submitted by a previous screen. LIVE_STREAM timestamps must
+     * keep increasing for as long as the landmarker lives.
+     */
+    public synchronized long getLastTimestampMs() {
+        return lastTimestampMs;
+    }
+
+    /**
+     * Drops a reference taken with {@link #acquire}.
+     */
+    public synchronized void release(ResultListener resultListener, long lastTimestampMs) {
+        if (refCount == 0) return;
+
+        refCount--;
+        this.lastTimestampMs = Math.max(this.lastTimestampMs, lastTimestampMs);
+        if (listener == resultListener) {
+            listener = null;
+        }
+        if (refCount == 0) {
+            mainHandler.postDelayed(idleClose, KEEP_ALIVE_MS);
+        }
+    }
+
+    /**
+     * Closes the landmarker soon, on the loader thread, if nobody is using it by then.
+     */
+    public void closeIfIdle() {
+        loader.execute(this::closeNowIfIdle);
+    }
+
+    private void registerTrimCallbacks(Context appContext) {
+        synchronized (this) {
+            if (trimCallbacksRegistered) return;
+            trimCallbacksRegistered = true;
+        }
+        appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_BACKGROUND) {
+                    closeIfIdle();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                closeIfIdle();
+            }
+        });
+    }
+
+    private boolean isConfigured(boolean liveStream, int numHands) {
+        return landmarkerLiveStream == liveStream && landmarkerNumHands == numHands;
+    }
+
+    /**
+     * Loader thread only. The lock is held just long enough to read and publish the state, never
+     * while the model loads or a landmarker closes, so the main thread never waits for either.
+     */
+    private void closeNowIfIdle() {
+        HandLandmarker idle;
+        synchronized (this) {
+            if (refCount > 0 || landmarker == null) return;
+            mainHandler.removeCallbacks(idleClose);
+            idle = landmarker;
+            landmarker = null;
+            lastTimestampMs = -1;
+        }
+        idle.close();
+        Log.i(TAG, "Closed idle HandLandmarker");
+    }
+
+    /**
+     * Returns a landmarker for the given configuration, building it if needed. Loader thread
+     * only, see {@link #closeNowIfIdle()}.
+     */
+    private HandLandmarker load(Context context, boolean liveStream, int numHands) throws IOException {
+        HandLandmarker stale;
+        synchronized (this) {
+            if (landmarker != null) {
+                if (isConfigured(liveStream, numHands)) return landmarker;
+                if (refCount > 0) {
+                    throw new IllegalStateException("HandLandmarker is in use with another configuration");
+                }
+            }
+            // Running mode and hand count are fixed at creation
+            stale = landmarker;
+            landmarker = null;
+            lastTimestampMs = -1;
+        }
+        if (stale != null) {
+            stale.close();
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        BaseOptions baseOptions = BaseOptions.builder()
+                .setModelAssetBuffer(loadModel(context))
+                .build();
+
+        HandLandmarker.HandLandmarkerOptions.Builder optionsBuilder = HandLandmarker.HandLandmarkerOptions.builder()
+                .setBaseOptions(baseOptions)
+                .setRunningMode(liveStream ? RunningMode.LIVE_STREAM : RunningMode.IMAGE)
+                .setNumHands(numHands)
+                .setMinHandDetectionConfidence(0.7f)
+                .setMinHandPresenceConfidence(0.7f)
+                .setMinTrackingConfidence(0.5f);
+
+        if (liveStream) {
+            // Results are delivered on MediaPipe's own thread, so the analyzer is free
+            // to accept the next frame while this one is still being inferred
+            optionsBuilder
+                    .setResultListener(this::dispatchResult)
+                    .setErrorListener(e -> {
+                        PerformanceStats.getInstance().increment(PerformanceStats.Counter.ERRORS);
+                        Log.e(TAG, "Hand detection error", e);
+                    });
+        }
+
+        HandLandmarker created = HandLandmarker.createFromOptions(context, optionsBuilder.build());
+        synchronized (this) {
+            landmarker = created;
+            landmarkerLiveStream = liveStream;
+            landmarkerNumHands = numHands;
+        }
+        Log.i(TAG, "Created HandLandmarker for " + numHands + " hands in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return created;
+    }
+
+    private void dispatchResult(HandLandmarkerResult result, MPImage input) {
+        ResultListener current = listener;
+        if (current != null) {
+            current.onResult(result, input);
+        }
+    }
+
+    /**
+     * Maps the model out of the APK, or reads it into direct memory if the asset is compressed.
+     * The buffer is kept for the life of the process.
+     */
+    private ByteBuffer loadModel(Context context) throws IOException {
+        if (modelBuffer != null) return modelBuffer;
+
+        AssetManager assets = context.getAssets();
+        try (AssetFileDescriptor descriptor = assets.openFd(MODEL_ASSET);
+             FileInputStream input = descriptor.createInputStream()) {
+            modelBuffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getDeclaredLength());
+            Log.d(TAG, "Memory-mapped model, " + modelBuffer.capacity() + " bytes");
+        } catch (FileNotFoundException e) {
+            // openFd() only works for assets stored uncompressed
+            try (InputStream input = assets.open(MODEL_ASSET)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] chunk = new byte[64 * 1024];
+                int read;
+                while ((read = input.read(chunk)) != -1) {
+                    bytes.write(chunk, 0, read);
+                }
+                ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size()).order(ByteOrder.nativeOrder());
+                buffer.put(bytes.toByteArray());
+                buffer.flip();
+                modelBuffer = buffer;
+            }
+            Log.d(TAG, "Loaded compressed model into memory, " + modelBuffer.capacity() + " bytes");
+        }
+        return modelBuffer;
+    }
+}
@@ -0,0 +1,98 @@
+package com.outsystems.plugins.rpsgame;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket latency histogram that can be recorded into from any thread without allocating.
+ *
+ * Values are kept in microseconds. Below 16 us every microsecond has its own bucket, above that
+ * every power of two is split into four buckets, so a reported percentile is at most 25% above
+ * the real value. The range ends at about 35 minutes; larger values land in the last bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKETS = 4;  // per power of two
+    private static final int FIRST_OCTAVE = 4; // log2(LINEAR_BUCKETS)
+    private static final int LAST_OCTAVE = 31;
+    static final int BUCKET_COUNT = LINEAR_BUCKETS + (LAST_OCTAVE - FIRST_OCTAVE + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLongArray totals = new AtomicLongArray(2); // count, sum in us
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMicros(long micros) {
+        if (micros < 0) micros = 0;
+        buckets.incrementAndGet(bucketOf(micros));
+        totals.incrementAndGet(0);
+        totals.addAndGet(1, micros);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        totals.set(0, 0);
+        totals.set(1, 0);
+    }
+
+    public long getCount() {
+        return totals.get(0);
+    }
+
+    public double getMeanMillis() {
+        long count = totals.get(0);
+        return count == 0 ? 0 : totals.get(1) / 1000.0 / count;
+    }
+
+    /**
+     * Returns the given percentiles (0 to 100) in milliseconds, as the upper bound of the bucket
+     * each one falls in. All values are taken from one pass over the buckets.
+     */
+    public double[] getPercentilesMillis(double... percentiles) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        double[] values = new double[percentiles.length];
+        if (total == 0) return values;
+
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    values[p] = upperBoundMicros(i) / 1000.0;
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_BUCKETS) return (int) micros;
+
+        int octave = 63 - Long.numberOfLeadingZeros(micros);
+        if (octave > LAST_OCTAVE) return BUCKET_COUNT - 1;
+
+        int sub = (int) (micros >>> (octave - 2)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (octave - FIRST_OCTAVE) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundMicros(int bucket) {
+        if (bucket < LINEAR_BUCKETS) return bucket + 1;
+
+        int octave = FIRST_OCTAVE + (bucket - LINEAR_BUCKETS) / SUB_BUCKETS;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long step = 1L << (octave - 2);
+        return (1L << octave) + (sub + 1) * step;
+    }
+}
@@ -0,0 +1,352 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of every decided outcome and countdown round, kept across app restarts.
+ *
+ * {@link #append} only copies the record into a memory batch, so it is safe on the camera,
+ * result and main threads. A single writer thread appends a batch to the log once it holds
+ * {@link #BATCH_RECORDS} records or has waited {@link #FLUSH_INTERVAL_MS}, adds the records to
+ * the running {@link MatchStats} and saves those as the log's index. Queries run on the same
+ * thread and answer from the index, so their cost does not grow with the log.
+ *
+ * All values are little endian. The log starts with a header followed by fixed-size records:
+ * <pre>
+ * header: int magic ("RPSM"), int version
+ * record: long timestampMs, byte source, byte players, byte resolution, byte winning gesture,
+ *         int winner mask, int decision latency ms (-1 if unknown),
+ *         6 bytes gesture per player, 2 bytes padding, 6 floats confidence per player
+ * </pre>
+ * Gestures and resolutions are stored as enum ordinals. At 52 bytes a record, a busy event day
+ * of ten thousand rounds adds about half a megabyte.
+ */
+public class MatchHistory {
+
+    private static final String TAG = "MatchHistory";
+
+    public static final int SOURCE_FRAME = 0; // live outcome, decided from the stable gestures
+    public static final int SOURCE_ROUND = 1; // countdown round
+
+    public static final int MAX_PLAYERS = 6;
+    public static final int BATCH_RECORDS = 64;
+    public static final long FLUSH_INTERVAL_MS = 5000;
+    public static final int MAX_RECENT = 100;
+
+    static final int MAGIC = 0x4D535052; // "RPSM" read as little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int GESTURES_OFFSET = 20;
+    static final int CONFIDENCES_OFFSET = GESTURES_OFFSET + MAX_PLAYERS + 2;
+    static final int RECORD_BYTES = CONFIDENCES_OFFSET + MAX_PLAYERS * 4;
+
+    private static final String DIRECTORY = "match_history";
+    private static final String LOG_FILE = "rounds.rpsm";
+    private static final String INDEX_FILE = "stats.idx";
+
+    private static final RPSGesture[] GESTURES = RPSGesture.values();
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private static final MatchHistory INSTANCE = new MatchHistory();
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "MatchHistoryWriter");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // Producer side, guarded by this
+    private final ByteBuffer pending = ByteBuffer.allocate(BATCH_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private boolean flushScheduled = false;
+    private long droppedRecords = 0;
+
+    // Writer thread only
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(BATCH_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(MatchStats.indexBytes()).order(ByteOrder.LITTLE_ENDIAN);
+    private final MatchStats stats = new MatchStats();
+    private File directory;
+    private FileChannel log;
+    private IOException openError;
+
+    private volatile boolean opened = false;
+
+    public static MatchHistory getInstance() {
+        return INSTANCE;
+    }
+
+    private MatchHistory() {
+    }
+
+    /**
+     * Opens the log in the background; records appended before it is ready are kept.
+     */
+    public synchronized void open(Context context) {
+        if (opened) return;
+        opened = true;
+        File dir = new File(context.getApplicationContext().getFilesDir(), DIRECTORY);
+        writer.execute(() -> openLog(dir));
+    }
+
+    /**
+     * Queues one record. Never blocks on the disk.
+     *
+     * @param gestures    gesture per player, the first {@code players} are used
+     * @param confidences confidence per player
+     * @param latencyMs   time from every player being in view to the decision, -1 if unknown
+     */
+    public void append(long timestampMs, int source, int players, Resolution resolution, RPSGesture winningGesture,
+                       int winnerMask, long latencyMs, RPSGesture[] gestures, float[] confidences) {
+        players = Math.min(players, MAX_PLAYERS);
+        synchronized (this) {
+            if (pending.remaining() < RECORD_BYTES) {
+                // Flush already queued, the writer is behind
+                droppedRecords++;
+                return;
+            }
+
+            int start = pending.position();
+            pending.putLong(timestampMs)
+                    .put((byte) source)
+                    .put((byte) players)
+                    .put((byte) resolution.ordinal())
+                    .put((byte) winningGesture.ordinal())
+                    .putInt(winnerMask)
+                    .putInt((int) Math.min(Integer.MAX_VALUE, latencyMs));
+            for (int p = 0; p < MAX_PLAYERS; p++) {
+                pending.put((byte) (p < players ? gestures[p] : RPSGesture.UNKNOWN).ordinal());
+            }
+            pending.putShort((short) 0);
+            for (int p = 0; p < MAX_PLAYERS; p++) {
+                pending.putFloat(p < players ? confidences[p] : 0f);
+            }
+            pending.position(start + RECORD_BYTES);
+
+            if (pending.remaining() < RECORD_BYTES) {
+                writer.execute(this::flush);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                writer.schedule(this::flush, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes queued records now, e.g. when the game screen closes.
+     */
+    public void flushAsync() {
+        writer.execute(this::flush);
+    }
+
+    /**
+     * Returns the aggregate statistics and the {@code recent} latest records, newest first.
+     * Blocks until the writer thread has answered, so call it off the main thread.
+     */
+    public JSONObject queryStats(int recent) throws JSONException {
+        int count = Math.max(0, Math.min(MAX_RECENT, recent));
+        try {
+            return writer.submit(() -> {
+                flush();
+                JSONObject json = stats.toJson();
+                json.put("recent", readRecent(count));
+                synchronized (this) {
+                    json.put("droppedRecords", droppedRecords);
+                }
+                if (openError != null) {
+                    json.put("openError", openError.getMessage());
+                }
+                return json;
+            }).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JSONException) throw (JSONException) cause;
+            throw new JSONException("Failed to read match history: " + cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSONException("Interrupted while reading match history");
+        }
+    }
+
+    private void openLog(File dir) {
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            directory = dir;
+            log = new RandomAccessFile(new File(dir, LOG_FILE), "rw").getChannel();
+
+            if (log.size() < HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                log.truncate(0);
+                log.write(header, 0);
+            }
+
+            // A record cut short by a crash is dropped
+            long records = (log.size() - HEADER_BYTES) / RECORD_BYTES;
+            long end = HEADER_BYTES + records * RECORD_BYTES;
+            if (log.size() != end) {
+                log.truncate(end);
+            }
+            log.position(end);
+
+            if (!readIndex() || stats.records != records) {
+                rebuildIndex();
+            }
+            Log.i(TAG, "Match history has " + stats.records + " records");
+        } catch (IOException e) {
+            openError = e;
+            Log.e(TAG, "Cannot open match history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the queued records and updates the index. Writer thread only.
+     */
+    private void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+            pending.flip();
+            writeBuffer.clear();
+            writeBuffer.put(pending);
+            pending.clear();
+        }
+        writeBuffer.flip();
+        if (!writeBuffer.hasRemaining()) return;
+        if (log == null) {
+            // The log could not be opened, the records have nowhere to go
+            synchronized (this) {
+                droppedRecords += writeBuffer.remaining() / RECORD_BYTES;
+            }
+            return;
+        }
+
+        try {
+            long position = log.position();
+            while (writeBuffer.hasRemaining()) {
+                log.write(writeBuffer);
+            }
+            log.force(false);
+
+            writeBuffer.rewind();
+            while (writeBuffer.hasRemaining()) {
+                stats.add(writeBuffer);
+            }
+            writeIndex();
+            Log.d(TAG, "Wrote " + (log.position() - position) / RECORD_BYTES + " records");
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing match history: " + e.getMessage());
+        }
+    }
+
+    private boolean readIndex() {
+        File file = new File(directory, INDEX_FILE);
+        if (!file.isFile()) return false;
+
+        try (RandomAccessFile index = new RandomAccessFile(file, "r")) {
+            indexBuffer.clear();
+            FileChannel channel = index.getChannel();
+            while (indexBuffer.hasRemaining() && channel.read(indexBuffer) > 0) {
+                // Small file, a couple of reads at most
+            }
+            indexBuffer.flip();
+            return stats.read(indexBuffer);
+        } catch (IOException e) {
+            Log.w(TAG, "Unreadable match history index: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves the totals through a temporary file, so a crash never leaves a torn index.
+     */
+    private void writeIndex() throws IOException {
+        File temp = new File(directory, INDEX_FILE + ".tmp");
+        try (RandomAccessFile index = new RandomAccessFile(temp, "rw")) {
+            indexBuffer.clear();
+            stats.write(indexBuffer);
+            indexBuffer.flip();
+            FileChannel channel = index.getChannel();
+            channel.truncate(0);
+            while (indexBuffer.hasRemaining()) {
+                channel.write(indexBuffer);
+            }
+            channel.force(false);
+        }
+        if (!temp.renameTo(new File(directory, INDEX_FILE))) {
+            throw new IOException("Cannot replace match history index");
+        }
+    }
+
+    /**
+     * Recomputes the totals from the log and saves them.
+     */
+    private void rebuildIndex() throws IOException {
+        stats.rebuild(log);
+        writeIndex();
+        Log.i(TAG, "Rebuilt match history index from " + stats.records + " records");
+    }
+
+    /**
+     * Reads the last {@code count} records from the end of the log.
+     */
+    private JSONArray readRecent(int count) throws IOException, JSONException {
+        JSONArray recent = new JSONArray();
+        if (log == null || count == 0) return recent;
+
+        long records = (log.size() - HEADER_BYTES) / RECORD_BYTES;
+        int n = (int) Math.min(count, records);
+        ByteBuffer buffer = ByteBuffer.allocate(n * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER_BYTES + (records - n) * RECORD_BYTES;
+        while (buffer.hasRemaining() && log.read(buffer, position + buffer.position()) > 0) {
+            // Keep reading until the tail is in
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            recent.put(recordJson(buffer, i * RECORD_BYTES));
+        }
+        return recent;
+    }
+
+    private static JSONObject recordJson(ByteBuffer buffer, int start) throws JSONException {
+        int players = Math.min(buffer.get(start + 9), MAX_PLAYERS);
+        int winnerMask = buffer.getInt(start + 12);
+        JSONArray gestures = new JSONArray();
+        JSONArray confidences = new JSONArray();
+        JSONArray winners = new JSONArray();
+        for (int p = 0; p < players; p++) {
+            gestures.put(GESTURES[buffer.get(start + GESTURES_OFFSET + p)].name());
+            confidences.put(Math.round(buffer.getFloat(start + CONFIDENCES_OFFSET + p * 4) * 1000) / 1000.0);
+            if ((winnerMask & (1 << p)) != 0) {
+                winners.put(p + 1);
+            }
+        }
+        int latencyMs = buffer.getInt(start + 16);
+        return new JSONObject()
+                .put("timestamp", buffer.getLong(start))
+                .put("source", buffer.get(start + 8) == SOURCE_ROUND ? "round" : "live")
+                .put("resolution", RESOLUTIONS[buffer.get(start + 10)].name())
+                .put("winningGesture", GESTURES[buffer.get(start + 11)].name())
+                .put("winners", winners)
+                .put("gestures", gestures)
+                .put("confidences", confidences)
+                .put("decisionLatencyMs", latencyMs < 0 ? JSONObject.NULL : latencyMs);
+    }
+}
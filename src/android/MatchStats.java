@@ -0,0 +1,231 @@
+package com.outsystems.plugins.rpsgame;
+
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Running totals over every record of the {@link MatchHistory} log.
+ *
+ * Records are added one at a time as they are written, so a query never has to read the log.
+ * The totals are saved next to the log as its index and rebuilt from it when they do not match.
+ */
+class MatchStats {
+
+    static final int INDEX_MAGIC = 0x58535052; // "RPSX" read as little endian
+    static final int INDEX_VERSION = 1;
+
+    private static final RPSGesture[] GESTURES = RPSGesture.values();
+    private static final int READ_BUFFER_RECORDS = 1024;
+
+    long records;
+    long decided;
+    long draws;
+    long missed; // rounds without a throw from every player
+    final long[] bySource = new long[2];
+    final long[] playerRounds = new long[MatchHistory.MAX_PLAYERS];
+    final long[] playerWins = new long[MatchHistory.MAX_PLAYERS];
+    final long[] gesturesThrown = new long[GESTURES.length];
+    final long[] winningGestures = new long[GESTURES.length];
+    long latencySumMs;
+    long latencyCount;
+    long latencyMaxMs;
+    long firstTimestampMs;
+    long lastTimestampMs;
+
+    /**
+     * Adds the record at the buffer's position and moves past it.
+     */
+    void add(ByteBuffer record) {
+        int start = record.position();
+        long timestampMs = record.getLong(start);
+        int source = record.get(start + 8);
+        int players = Math.min(record.get(start + 9), MatchHistory.MAX_PLAYERS);
+        int resolution = record.get(start + 10);
+        int winningGesture = record.get(start + 11);
+        int winnerMask = record.getInt(start + 12);
+        int latencyMs = record.getInt(start + 16);
+
+        if (records == 0) {
+            firstTimestampMs = timestampMs;
+        }
+        records++;
+        lastTimestampMs = timestampMs;
+        if (source >= 0 && source < bySource.length) {
+            bySource[source]++;
+        }
+
+        if (resolution == Resolution.UNDECIDED.ordinal()) {
+            missed++;
+        } else {
+            decided++;
+            if (resolution == Resolution.DRAW.ordinal()) {
+                draws++;
+            } else if (winningGesture >= 0 && winningGesture < GESTURES.length) {
+                winningGestures[winningGesture]++;
+            }
+            for (int p = 0; p < players; p++) {
+                playerRounds[p]++;
+                if ((winnerMask & (1 << p)) != 0) {
+                    playerWins[p]++;
+                }
+                int gesture = record.get(start + MatchHistory.GESTURES_OFFSET + p);
+                if (gesture >= 0 && gesture < GESTURES.length) {
+                    gesturesThrown[gesture]++;
+                }
+            }
+            if (latencyMs >= 0) {
+                latencySumMs += latencyMs;
+                latencyCount++;
+                latencyMaxMs = Math.max(latencyMaxMs, latencyMs);
+            }
+        }
+        record.position(start + MatchHistory.RECORD_BYTES);
+    }
+
+    /**
+     * Recomputes the totals by streaming every whole record of a log through a small buffer.
+     */
+    void rebuild(FileChannel log) throws IOException {
+        clear();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_RECORDS * MatchHistory.RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long position = MatchHistory.HEADER_BYTES;
+        long end = log.size();
+        while (position < end) {
+            buffer.clear();
+            int read = log.read(buffer, position);
+            if (read <= 0) break;
+            position += read;
+            buffer.flip();
+            while (buffer.remaining() >= MatchHistory.RECORD_BYTES) {
+                add(buffer);
+            }
+            // Keep a partial record for the next read
+            position -= buffer.remaining();
+        }
+    }
+
+    static int indexBytes() {
+        int longs = 13 + 2 + MatchHistory.MAX_PLAYERS * 2 + GESTURES.length * 2;
+        return 8 + longs * 8;
+    }
+
+    void write(ByteBuffer out) {
+        out.putInt(INDEX_MAGIC).putInt(INDEX_VERSION);
+        out.putLong(records).putLong(decided).putLong(draws).putLong(missed);
+        putAll(out, bySource);
+        putAll(out, playerRounds);
+        putAll(out, playerWins);
+        putAll(out, gesturesThrown);
+        putAll(out, winningGestures);
+        out.putLong(latencySumMs).putLong(latencyCount).putLong(latencyMaxMs);
+        out.putLong(firstTimestampMs).putLong(lastTimestampMs);
+        // Spare, keeps the index size stable for additions
+        out.putLong(0).putLong(0).putLong(0).putLong(0);
+    }
+
+    /**
+     * Reads an index written by {@link #write}; returns false if it is not one.
+     */
+    boolean read(ByteBuffer in) {
+        if (in.remaining() < indexBytes() || in.getInt() != INDEX_MAGIC || in.getInt() != INDEX_VERSION) {
+            return false;
+        }
+        records = in.getLong();
+        decided = in.getLong();
+        draws = in.getLong();
+        missed = in.getLong();
+        getAll(in, bySource);
+        getAll(in, playerRounds);
+        getAll(in, playerWins);
+        getAll(in, gesturesThrown);
+        getAll(in, winningGestures);
+        latencySumMs = in.getLong();
+        latencyCount = in.getLong();
+        latencyMaxMs = in.getLong();
+        firstTimestampMs = in.getLong();
+        lastTimestampMs = in.getLong();
+        return true;
+    }
+
+    void clear() {
+        records = decided = draws = missed = 0;
+        latencySumMs = latencyCount = latencyMaxMs = 0;
+        firstTimestampMs = lastTimestampMs = 0;
+        Arrays.fill(bySource, 0);
+        Arrays.fill(playerRounds, 0);
+        Arrays.fill(playerWins, 0);
+        Arrays.fill(gesturesThrown, 0);
+        Arrays.fill(winningGestures, 0);
+    }
+
+    JSONObject toJson() throws JSONException {
+        JSONArray players = new JSONArray();
+        for (int p = 0; p < playerRounds.length; p++) {
+            if (playerRounds[p] == 0) continue;
+            players.put(new JSONObject()
+                    .put("player", p + 1)
+                    .put("rounds", playerRounds[p])
+                    .put("wins", playerWins[p])
+                    .put("winRate", ratio(playerWins[p], playerRounds[p])));
+        }
+
+        long thrown = 0;
+        for (long count : gesturesThrown) {
+            thrown += count;
+        }
+        JSONObject gestures = new JSONObject();
+        for (RPSGesture gesture : GESTURES) {
+            int g = gesture.ordinal();
+            gestures.put(gesture.name(), new JSONObject()
+                    .put("thrown", gesturesThrown[g])
+                    .put("frequency", ratio(gesturesThrown[g], thrown))
+                    .put("wins", winningGestures[g]));
+        }
+
+        JSONObject latency = new JSONObject()
+                .put("count", latencyCount)
+                .put("meanMs", latencyCount == 0 ? 0 : Math.round(latencySumMs * 10.0 / latencyCount) / 10.0)
+                .put("maxMs", latencyMaxMs);
+
+        return new JSONObject()
+                .put("records", records)
+                .put("decided", decided)
+                .put("draws", draws)
+                .put("drawRate", ratio(draws, decided))
+                .put("missed", missed)
+                .put("liveOutcomes", bySource[MatchHistory.SOURCE_FRAME])
+                .put("countdownRounds", bySource[MatchHistory.SOURCE_ROUND])
+                .put("players", players)
+                .put("gestures", gestures)
+                .put("decisionLatency", latency)
+                .put("firstTimestamp", firstTimestampMs)
+                .put("lastTimestamp", lastTimestampMs);
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0 : Math.round(part * 10000.0 / total) / 10000.0;
+    }
+
+    private static void putAll(ByteBuffer out, long[] values) {
+        for (long value : values) {
+            out.putLong(value);
+        }
+    }
+
+    private static void getAll(ByteBuffer in, long[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.getLong();
+        }
+    }
+}
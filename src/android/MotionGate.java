@@ -0,0 +1,115 @@
+package com.outsystems.plugins.rpsgame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decides whether a frame changed enough since the last inferred one to be worth a new
+ * inference, so still players and an empty scene do not keep the hand landmarker busy.
+ *
+ * A frame's signature is the mean luma of each block of a {@link #GRID_COLUMNS} x
+ * {@link #GRID_ROWS} grid, sampled at {@link #SAMPLES_PER_SIDE} squared points per block
+ * straight from the RGBA pixels, before any conversion. It is compared with the signature of
+ * the last frame that was inferred, not the previous one, so slow movement adds up until it
+ * trips the gate. A moving hand changes a few blocks a lot while sensor noise changes all of
+ * them a little, so the largest block difference decides. Results older than the maximum age
+ * are always refreshed.
+ *
+ * About three thousand pixel reads a frame and no allocation. Analyzer thread only, except
+ * for {@link #reset()}.
+ */
+public class MotionGate {
+
+    public static final int GRID_COLUMNS = 16;
+    public static final int GRID_ROWS = 12;
+    public static final float DEFAULT_THRESHOLD = 12f; // largest block change, luma levels 0-255
+    public static final long DEFAULT_MAX_AGE_MS = 500;
+
+    private static final int SAMPLES_PER_SIDE = 4;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final int threshold; // in summed samples, to compare without dividing
+    private final long maxAgeNanos;
+
+    private final int[] reference = new int[GRID_COLUMNS * GRID_ROWS];
+    private final int[] signature = new int[GRID_COLUMNS * GRID_ROWS];
+    private volatile boolean hasReference = false; // reset from the main thread
+    private long referenceNanos;
+    private int referenceWidth;
+    private int referenceHeight;
+
+    public MotionGate() {
+        this(DEFAULT_THRESHOLD, DEFAULT_MAX_AGE_MS);
+    }
+
+    public MotionGate(float threshold, long maxAgeMs) {
+        if (threshold < 0f || maxAgeMs < 0) {
+            throw new IllegalArgumentException("threshold and maxAgeMs must not be negative");
+        }
+        this.threshold = Math.round(threshold * SAMPLES_PER_SIDE * SAMPLES_PER_SIDE);
+        this.maxAgeNanos = maxAgeMs * 1_000_000L;
+    }
+
+    /**
+     * Returns true if the frame needs inference, and then remembers it as the reference. False
+     * means the last result still describes the frame.
+     */
+    public boolean shouldInfer(FrameSource.Frame frame, long nowNanos) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        computeSignature(frame.getBuffer(), frame.getRowStride(), width, height, signature);
+
+        boolean infer = !hasReference
+                || width != referenceWidth || height != referenceHeight
+                || nowNanos - referenceNanos >= maxAgeNanos
+                || maxDifference(signature, reference) > threshold;
+        if (infer) {
+            System.arraycopy(signature, 0, reference, 0, signature.length);
+            hasReference = true;
+            referenceNanos = nowNanos;
+            referenceWidth = width;
+            referenceHeight = height;
+        }
+        return infer;
+    }
+
+    /**
+     * Forgets the reference, so the next frame is inferred. Safe to call from any thread.
+     */
+    public void reset() {
+        hasReference = false;
+    }
+
+    /**
+     * Sums the luma of the sample points of each block into {@code out}.
+     */
+    static void computeSignature(ByteBuffer pixels, int rowStride, int width, int height, int[] out) {
+        int cell = 0;
+        for (int row = 0; row < GRID_ROWS; row++) {
+            for (int column = 0; column < GRID_COLUMNS; column++) {
+                int sum = 0;
+                for (int sy = 0; sy < SAMPLES_PER_SIDE; sy++) {
+                    // Sample points sit at the centres of a 4x4 subgrid of the block
+                    int y = ((row * SAMPLES_PER_SIDE + sy) * 2 + 1) * height / (GRID_ROWS * SAMPLES_PER_SIDE * 2);
+                    int rowStart = y * rowStride;
+                    for (int sx = 0; sx < SAMPLES_PER_SIDE; sx++) {
+                        int x = ((column * SAMPLES_PER_SIDE + sx) * 2 + 1) * width
+                                / (GRID_COLUMNS * SAMPLES_PER_SIDE * 2);
+                        int i = rowStart + x * BYTES_PER_PIXEL;
+                        // BT.601 luma in fixed point
+                        sum += ((pixels.get(i) & 0xFF) * 77 + (pixels.get(i + 1) & 0xFF) * 150
+                                + (pixels.get(i + 2) & 0xFF) * 29) >> 8;
+                    }
+                }
+                out[cell++] = sum;
+            }
+        }
+    }
+
+    private static int maxDifference(int[] a, int[] b) {
+        int max = 0;
+        for (int i = 0; i < a.length; i++) {
+            max = Math.max(max, Math.abs(a[i] - b[i]));
+        }
+        return max;
+    }
+}
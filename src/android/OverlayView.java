@@ -8,16 +8,34 @@ import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
-import java.util.ArrayList;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class OverlayView extends View {
 
-    private List<HandDetection> detections = new ArrayList<>();
+    // Labels are cached for every player / gesture / confidence percentage combination
+    private static final int GESTURE_COUNT = RPSGesture.values().length;
+    private static final int PERCENT_STEPS = 101;
+
+    // Double buffered detections: setDetections() fills the back slot, onDraw() swaps it in.
+    // Lists come from DetectionSnapshot and are never modified, so no copy is needed.
+    private List<HandDetection> frontDetections = Collections.emptyList();
+    private List<HandDetection> backDetections = null;
+
     private Paint boxPaint;
     private Paint textPaint;
     private Paint textBgPaint;
 
+    // Reused on every draw
+    private final RectF scaledBox = new RectF();
+    private final RectF textBg = new RectF();
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+    private String[] labelCache = new String[2 * GESTURE_COUNT * PERCENT_STEPS];
+    private float[] labelWidthCache = new float[labelCache.length];
+
     public OverlayView(Context context) {
         super(context);
         init();
@@ -44,32 +62,48 @@ public class OverlayView extends View {
         textPaint.setAntiAlias(true);
         textPaint.setTextAlign(Paint.Align.CENTER);
         textPaint.setFakeBoldText(true);
+        textPaint.getFontMetrics(fontMetrics);
 
         textBgPaint = new Paint();
         textBgPaint.setStyle(Paint.Style.FILL);
         textBgPaint.setAntiAlias(true);
     }
 
+    /**
+     * Queues detections for the next draw. The list is kept, not copied, so it must not be
+     * modified afterwards.
+     */
     public void setDetections(List<HandDetection> detections) {
-        this.detections = new ArrayList<>(detections);
+        backDetections = detections;
         invalidate();
     }
 
     public void clear() {
-        detections.clear();
-        invalidate();
+        setDetections(Collections.<HandDetection>emptyList());
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long startNanos = System.nanoTime();
         super.onDraw(canvas);
 
+        if (backDetections != null) {
+            frontDetections = backDetections;
+            backDetections = null;
+        }
+
+        drawDetections(canvas);
+        PerformanceStats.getInstance().recordSince(PerformanceStats.Stage.DRAW, startNanos);
+    }
+
+    private void drawDetections(Canvas canvas) {
         // Get the actual view dimensions
         float viewWidth = getWidth();
         float viewHeight = getHeight();
 
         if (viewWidth <= 0 || viewHeight <= 0) return;
 
+        List<HandDetection> detections = frontDetections;
         for (int i = 0; i < detections.size(); i++) {
             HandDetection detection = detections.get(i);
 
@@ -78,7 +112,7 @@ public class OverlayView extends View {
             RectF normalizedBox = detection.boundingBox;
 
             // Mirror the X coordinates to match the camera preview
-            RectF scaledBox = new RectF(
+            scaledBox.set(
                     (1.0f - normalizedBox.right) * viewWidth,  // Flip X: right becomes left
                     normalizedBox.top * viewHeight,
                     (1.0f - normalizedBox.left) * viewWidth,   // Flip X: left becomes right
@@ -89,20 +123,17 @@ public class OverlayView extends View {
             boxPaint.setColor(detection.gesture.getColor());
             canvas.drawRoundRect(scaledBox, 16f, 16f, boxPaint);
 
-            // Create label text - use only our player assignment, not MediaPipe handedness
-            int confidence = Math.round(detection.confidence * 100);
-            String text = String.format("P%d: %s (%d%%)",
-                    i + 1, detection.gesture.getDisplayName(), confidence);
+            // Label text - use only our player assignment, not MediaPipe handedness
+            int confidence = Math.max(0, Math.min(100, Math.round(detection.confidence * 100)));
+            int labelIndex = labelIndex(detection.player, detection.gesture, confidence);
 
             // Calculate text position - above the bounding box
             float textX = scaledBox.centerX();
             float textY = Math.max(textPaint.getTextSize() + 20f, scaledBox.top - 12f);
 
             // Draw text background
-            Paint.FontMetrics fontMetrics = textPaint.getFontMetrics();
-            float textWidth = textPaint.measureText(text);
-
-            RectF textBg = new RectF(
+            float textWidth = labelWidthCache[labelIndex];
+            textBg.set(
                     textX - textWidth / 2 - 12f,
                     textY + fontMetrics.top - 6f,
                     textX + textWidth / 2 + 12f,
@@ -114,7 +145,27 @@ public class OverlayView extends View {
             canvas.drawRoundRect(textBg, 6f, 6f, textBgPaint);
 
             // Draw text
-            canvas.drawText(text, textX, textY, textPaint);
+            canvas.drawText(labelCache[labelIndex], textX, textY, textPaint);
+        }
+    }
+
+    /**
+     * Returns the cache slot for a label, building and measuring it the first time it is seen.
+     */
+    private int labelIndex(int player, RPSGesture gesture, int confidence) {
+        int index = (player * GESTURE_COUNT + gesture.ordinal()) * PERCENT_STEPS + confidence;
+        if (index >= labelCache.length) {
+            // More players than before, grow the cache once
+            int size = (player + 1) * GESTURE_COUNT * PERCENT_STEPS;
+            labelCache = Arrays.copyOf(labelCache, size);
+            labelWidthCache = Arrays.copyOf(labelWidthCache, size);
+        }
+
+        if (labelCache[index] == null) {
+            String label = "P" + (player + 1) + ": " + gesture.getDisplayName() + " (" + confidence + "%)";
+            labelCache[index] = label;
+            labelWidthCache[index] = textPaint.measureText(label);
         }
+        return index;
     }
-}
\ No newline at end of file
+}
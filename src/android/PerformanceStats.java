@@ -0,0 +1,250 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.os.Build;
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide latency and drop statistics of the detection pipeline.
+ *
+ * The detection screen records into it from the analyzer, MediaPipe and main threads; the
+ * plugin reads it through the getPerformanceStats action. Recording is lock-free and does not
+ * allocate, so it stays on in release builds.
+ */
+public class PerformanceStats {
+
+    public enum Stage {
+        CONVERT("convert"),         // camera frame copied into a MediaPipe image
+        INFERENCE("inference"),     // image submitted until its landmarks are back
+        PROCESS("process"),         // landmarks to snapshot: classification, players, outcome
+        UI_QUEUE("uiQueue"),        // snapshot published until the main thread applies it
+        DRAW("draw"),               // overlay onDraw
+        END_TO_END("endToEnd"),     // camera capture until the result is applied on screen
+        FIRST_DETECTION_COLD("firstDetectionCold"), // screen opened until the first result, model loaded on open
+        FIRST_DETECTION_WARM("firstDetectionWarm"), // same, with the model already loaded
+        ROI_CROPPED("roiCropped"),  // ROI tracking: frame cropped to the tracked region, converted and inferred
+        ROI_FULL("roiFull");        // ROI tracking: full frame, converted and inferred
+
+        final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    public enum Counter {
+        FRAMES_RECEIVED("framesReceived"),         // frames delivered by the camera
+        FRAMES_DROPPED("framesDropped"),           // replaced by the camera before delivery, estimated from timestamp gaps
+        FRAMES_SKIPPED("framesSkipped"),           // left out by the inference scheduler or the motion gate
+        FRAMES_REUSED("framesReused"),             // static, the motion gate reused the last result
+        FRAMES_ANALYZED("framesAnalyzed"),         // submitted to the hand landmarker
+        RESULTS_STALE("resultsStale"),             // live results dropped for arriving out of order
+        SNAPSHOTS_SUPERSEDED("snapshotsSuperseded"), // replaced before the UI picked them up
+        HANDOFF_DROPPED("handoffDropped"),         // pipelined: converted, replaced before inference took them
+        FRAME_BUFFERS_ALLOCATED("frameBuffersAllocated"), // pooled frame buffers (re)allocated by the converter
+        FRAME_BUFFER_BYTES("frameBufferBytes"),    // bytes of those buffers
+        ERRORS("errors");
+
+        final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Threads of the pipelined mode, see {@link InferencePipeline}.
+     */
+    public enum PipelineStage {
+        CONVERSION("conversion"), // analyzer thread: gating and conversion
+        INFERENCE("inference");   // inference thread: detect and processing
+
+        final String key;
+
+        PipelineStage(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final PerformanceStats INSTANCE = new PerformanceStats();
+
+    private static final int PENDING_FRAMES = 64; // a power of two, slots are timestamp bits
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private final AtomicLong[] counters = new AtomicLong[Counter.values().length];
+    private final AtomicLong[] busyNanos = new AtomicLong[PipelineStage.values().length];
+    private final AtomicLong[] wallNanos = new AtomicLong[PipelineStage.values().length];
+    private volatile long resetAtMillis = System.currentTimeMillis();
+
+    // Submit times of frames in flight for the inference stage, in the slot their timestamp
+    // picks. A frame whose slot is taken over before its result arrives goes unmeasured.
+    private final AtomicLongArray pendingTimestamps = new AtomicLongArray(PENDING_FRAMES);
+    private final AtomicLongArray pendingSubmitNanos = new AtomicLongArray(PENDING_FRAMES);
+
+    public static PerformanceStats getInstance() {
+        return INSTANCE;
+    }
+
+    private PerformanceStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new AtomicLong();
+        }
+        for (int i = 0; i < busyNanos.length; i++) {
+            busyNanos[i] = new AtomicLong();
+            wallNanos[i] = new AtomicLong();
+        }
+        clearPending();
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].recordNanos(nanos);
+    }
+
+    /**
+     * Records the time since {@code startNanos}, a {@link System#nanoTime()} value.
+     */
+    public void recordSince(Stage stage, long startNanos) {
+        histograms[stage.ordinal()].recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].incrementAndGet();
+    }
+
+    public void add(Counter counter, long delta) {
+        counters[counter.ordinal()].addAndGet(delta);
+    }
+
+    /**
+     * Adds one frame's work to a pipeline stage: {@code busy} of the {@code wall} nanoseconds
+     * since the stage's previous frame were spent on it.
+     */
+    public void recordOccupancy(PipelineStage stage, long busy, long wall) {
+        busyNanos[stage.ordinal()].addAndGet(busy);
+        wallNanos[stage.ordinal()].addAndGet(wall);
+    }
+
+    /**
+     * Remembers when the frame with the given timestamp was submitted for inference. Called by
+     * one thread at a time, the one submitting frames.
+     */
+    public void onSubmitted(long timestampMs, long submitNanos) {
+        int slot = (int) (timestampMs & (PENDING_FRAMES - 1));
+        // Free the slot first, so a result looking it up cannot pair the old timestamp with
+        // the new submit time
+        pendingTimestamps.set(slot, Long.MIN_VALUE);
+        pendingSubmitNanos.set(slot, submitNanos);
+        pendingTimestamps.set(slot, timestampMs);
+    }
+
+    /**
+     * Records the inference stage for a frame whose result just arrived.
+     */
+    public void onResult(long timestampMs, long resultNanos) {
+        int slot = (int) (timestampMs & (PENDING_FRAMES - 1));
+        if (pendingTimestamps.get(slot) != timestampMs) return;
+
+        long submitNanos = pendingSubmitNanos.get(slot);
+        // Fails if the slot was taken over meanwhile, the submit time may be the new frame's
+        if (pendingTimestamps.compareAndSet(slot, timestampMs, Long.MIN_VALUE)) {
+            record(Stage.INFERENCE, resultNanos - submitNanos);
+        }
+    }
+
+    /**
+     * Converts a camera timestamp to the {@link System#nanoTime()} time base. Cameras report
+     * either uptime or elapsed realtime, whichever the current time is closer to wins.
+     */
+    public static long cameraToNanoTime(long cameraNanos) {
+        long now = System.nanoTime();
+        long elapsed = SystemClock.elapsedRealtimeNanos();
+        if (Math.abs(now - cameraNanos) <= Math.abs(elapsed - cameraNanos)) {
+            return cameraNanos;
+        }
+        return cameraNanos - (elapsed - now);
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (AtomicLong counter : counters) {
+            counter.set(0);
+        }
+        for (int i = 0; i < busyNanos.length; i++) {
+            busyNanos[i].set(0);
+            wallNanos[i].set(0);
+        }
+        clearPending();
+        resetAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns percentiles per stage and the counters, in milliseconds, as reported to JavaScript.
+     */
+    public JSONObject toJson() throws JSONException {
+        JSONObject stages = new JSONObject();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            double[] percentiles = histogram.getPercentilesMillis(50, 95, 99);
+
+            JSONObject json = new JSONObject();
+            json.put("count", histogram.getCount());
+            json.put("mean", round(histogram.getMeanMillis()));
+            json.put("p50", round(percentiles[0]));
+            json.put("p95", round(percentiles[1]));
+            json.put("p99", round(percentiles[2]));
+            stages.put(stage.key, json);
+        }
+
+        JSONObject counts = new JSONObject();
+        for (Counter counter : Counter.values()) {
+            counts.put(counter.key, counters[counter.ordinal()].get());
+        }
+
+        JSONObject pipeline = new JSONObject();
+        for (PipelineStage stage : PipelineStage.values()) {
+            long wall = wallNanos[stage.ordinal()].get();
+            double occupancy = wall > 0 ? (double) busyNanos[stage.ordinal()].get() / wall : 0;
+            pipeline.put(stage.key, new JSONObject().put("occupancy", Math.round(occupancy * 1000) / 1000.0));
+        }
+
+        // Share of the ROI tracker's frames that were cropped
+        long cropped = histograms[Stage.ROI_CROPPED.ordinal()].getCount();
+        long roiFrames = cropped + histograms[Stage.ROI_FULL.ordinal()].getCount();
+        JSONObject roi = new JSONObject();
+        roi.put("hitRate", roiFrames > 0 ? Math.round((double) cropped / roiFrames * 1000) / 1000.0 : 0);
+
+        JSONObject device = new JSONObject();
+        device.put("manufacturer", Build.MANUFACTURER);
+        device.put("model", Build.MODEL);
+        device.put("sdkInt", Build.VERSION.SDK_INT);
+
+        JSONObject stats = new JSONObject();
+        stats.put("stages", stages);
+        stats.put("counters", counts);
+        stats.put("pipeline", pipeline);
+        stats.put("roi", roi);
+        stats.put("device", device);
+        stats.put("sinceMillis", resetAtMillis);
+        return stats;
+    }
+
+    private void clearPending() {
+        for (int i = 0; i < PENDING_FRAMES; i++) {
+            pendingTimestamps.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+}
@@ -1,81 +1,180 @@
 package com.outsystems.plugins.rpsgame;
 
 import android.Manifest;
+import android.content.ComponentCallbacks2;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Rect;
 import android.graphics.RectF;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.HandlerThread;
+import android.os.Looper;
 import android.util.Log;
 import android.util.Size;
+import android.util.TypedValue;
+import android.view.Gravity;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.WindowManager;
-import android.widget.Button;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.camera.core.CameraSelector;
-import androidx.camera.core.ImageAnalysis;
-import androidx.camera.core.ImageProxy;
-import androidx.camera.core.Preview;
-import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
-import androidx.lifecycle.LifecycleOwner;
 
-import com.google.common.util.concurrent.ListenableFuture;
-import com.google.mediapipe.framework.image.BitmapImageBuilder;
 import com.google.mediapipe.framework.image.MPImage;
-import com.google.mediapipe.tasks.core.BaseOptions;
-import com.google.mediapipe.tasks.vision.core.RunningMode;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
 import com.google.mediapipe.tasks.vision.handlandmarker.HandLandmarker;
 import com.google.mediapipe.tasks.vision.handlandmarker.HandLandmarkerResult;
 import com.google.mediapipe.tasks.components.containers.Category;
 import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
-
+import com.outsystems.plugins.rpsgame.engine.FrameResult;
+import com.outsystems.plugins.rpsgame.engine.GestureClassifier;
+import com.outsystems.plugins.rpsgame.engine.GestureEngine;
+import com.outsystems.plugins.rpsgame.engine.GestureStabilizer;
+import com.outsystems.plugins.rpsgame.engine.LandmarkRecorder;
+import com.outsystems.plugins.rpsgame.engine.LandmarkRecording;
+import com.outsystems.plugins.rpsgame.engine.Outcome;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+import com.outsystems.plugins.rpsgame.engine.RoundController;
+import com.outsystems.plugins.rpsgame.engine.RoundResolver;
+
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class RPSDetectionActivity extends AppCompatActivity {
 
     private static final String TAG = "RPSDetectionActivity";
     private static final int CAMERA_PERMISSION_REQUEST = 100;
+    // How long the frame threads of a closing screen are waited for before a warning is logged
+    private static final long HANDOVER_TIMEOUT_MS = 500;
+
+    // Intent extras
+    public static final String EXTRA_LIVE_STREAM = "com.outsystems.plugins.rpsgame.LIVE_STREAM";
+    public static final String EXTRA_PLAYERS = "com.outsystems.plugins.rpsgame.PLAYERS";
+    public static final String EXTRA_STABILIZER_WINDOW = "com.outsystems.plugins.rpsgame.STABILIZER_WINDOW";
+    public static final String EXTRA_STABILIZER_ENTER = "com.outsystems.plugins.rpsgame.STABILIZER_ENTER";
+    public static final String EXTRA_STABILIZER_EXIT = "com.outsystems.plugins.rpsgame.STABILIZER_EXIT";
+    public static final String EXTRA_ADAPTIVE_INFERENCE = "com.outsystems.plugins.rpsgame.ADAPTIVE_INFERENCE";
+    public static final String EXTRA_ROI_TRACKING = "com.outsystems.plugins.rpsgame.ROI_TRACKING";
+    public static final String EXTRA_RECORD_LANDMARKS = "com.outsystems.plugins.rpsgame.RECORD_LANDMARKS";
+    public static final String EXTRA_ROUND_MODE = "com.outsystems.plugins.rpsgame.ROUND_MODE";
+    public static final String EXTRA_BEST_OF = "com.outsystems.plugins.rpsgame.BEST_OF";
+    public static final String EXTRA_PIPELINED = "com.outsystems.plugins.rpsgame.PIPELINED";
+    public static final String EXTRA_SKELETON_OVERLAY = "com.outsystems.plugins.rpsgame.SKELETON_OVERLAY";
+    public static final String EXTRA_MOTION_GATE = "com.outsystems.plugins.rpsgame.MOTION_GATE";
+    public static final String EXTRA_MOTION_THRESHOLD = "com.outsystems.plugins.rpsgame.MOTION_THRESHOLD";
+    public static final String EXTRA_MOTION_MAX_AGE = "com.outsystems.plugins.rpsgame.MOTION_MAX_AGE";
+    public static final String EXTRA_FRAME_SOURCE_PATH = "com.outsystems.plugins.rpsgame.FRAME_SOURCE_PATH";
+    public static final String EXTRA_FRAME_SOURCE_FORMAT = "com.outsystems.plugins.rpsgame.FRAME_SOURCE_FORMAT";
+    public static final String EXTRA_FRAME_SOURCE_WIDTH = "com.outsystems.plugins.rpsgame.FRAME_SOURCE_WIDTH";
+    public static final String EXTRA_FRAME_SOURCE_HEIGHT = "com.outsystems.plugins.rpsgame.FRAME_SOURCE_HEIGHT";
+    public static final String EXTRA_FRAME_SOURCE_FPS = "com.outsystems.plugins.rpsgame.FRAME_SOURCE_FPS";
+    public static final String EXTRA_FRAME_SOURCE_LOOPS = "com.outsystems.plugins.rpsgame.FRAME_SOURCE_LOOPS";
+    public static final String EXTRA_FRAME_SOURCE_ROTATION = "com.outsystems.plugins.rpsgame.FRAME_SOURCE_ROTATION";
+
+    private static final int MIN_PLAYERS = 2;
+    private static final int MAX_HANDS = LandmarkerHolder.MAX_HANDS;
+
+    // Player labels share one row, text shrinks for groups
+    private static final float PLAYER_TEXT_SP = 20f;
+    private static final float MIN_PLAYER_TEXT_SP = 12f;
 
     // UI Components
     private PreviewView previewView;
     private TextView player1Label;
     private TextView player2Label;
+    private TextView[] playerLabels; // one per player, left to right
     private TextView winnerLabel;
     private TextView instructionsLabel;
     private ImageView handImage;
     private View playersBgView;
     private OverlayView overlayView;
+    private volatile SkeletonOverlayView skeletonView; // null when the skeleton overlay is off
 
-    // Camera
-    private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
-    private ProcessCameraProvider cameraProvider;
-    private ImageAnalysis imageAnalysis;
-    private ExecutorService backgroundExecutor;
+    // Frames, from the camera unless a recording is played back
+    private FrameSource frameSource;
+    private boolean playback = false; // frames come from a FileFrameSource
+    private InferenceScheduler inferenceScheduler; // null when adaptive inference is off
+    private MotionGate motionGate;                 // null when the motion gate is off
 
     // MediaPipe
-    private HandLandmarker handLandmarker;
-    private int frameWidth = 0;
-    private int frameHeight = 0;
-    private List<HandDetection> lastDetections = new ArrayList<>();
+    private final LandmarkerHolder landmarkerHolder = LandmarkerHolder.getInstance();
+    private final LandmarkerHolder.ResultListener resultListener = this::onLiveStreamResult;
+    private volatile HandLandmarker handLandmarker; // set once the shared landmarker is acquired
+    private final Object landmarkerLock = new Object();
+    private boolean destroyed = false; // guarded by landmarkerLock
+    private boolean playbackStarted = false; // guarded by landmarkerLock
+    private final Object resultLock = new Object(); // held while a LIVE_STREAM result is processed
+    private boolean resultsDetached = false;        // guarded by resultLock
+    private boolean paused = false;             // main thread
+    private boolean landmarkerTrimmed = false;  // main thread, released under memory pressure
+    private FrameConverter frameConverter;
+    private InferencePipeline pipeline; // IMAGE mode on its own thread, null when not pipelined
+    private boolean liveStream = true;
+    private int players = LandmarkerHolder.DEFAULT_NUM_HANDS;
+    private long lastSubmittedTimestampMs = -1;       // analyzer thread only
+    private long lastInferredTimestampMs = -1;        // analyzer thread, last frame sent to the landmarker
+    private volatile long lastResultTimestampMs = -1; // MediaPipe result thread
+    private volatile int frameWidth = 0;  // written by the analyzer, read by the result thread
+    private volatile int frameHeight = 0;
+
+    // Time to first detection, from onCreate() to the first processed result
+    private long launchNanos;
+    private boolean warmStart;                 // landmarker was already loaded at launch
+    private volatile boolean firstResultSeen = false; // written by the result thread, read by the analyzer
+
+    // Game logic, only touched by the thread that processes results
+    private GestureEngine engine;
+    private FrameResult frameResult;
+    private final float[] landmarkBuffer = new float[MAX_HANDS * GestureClassifier.FLOATS_PER_HAND];
+    private final List<List<NormalizedLandmark>> inputHands = new ArrayList<>(MAX_HANDS);
+    private final int[] inputIndex = new int[MAX_HANDS]; // position of each input hand in the result
+    private volatile DetectionSession pendingSession; // handed over, not ready yet; cleared by the analyzer
+
+    // Region of interest tracking, null when disabled
+    private RoiTracker roiTracker;
+    private final float[] submitRegion = new float[4];  // analyzer thread
+    private final float[] bufferRegion = new float[4];  // analyzer thread
+    private final int[] pixelRegion = new int[4];       // analyzer thread
+    private final float[] resultRegion = new float[4];  // result thread
+
+    // Countdown rounds, null when every frame decides the winner
+    private RoundController roundController;
+    private final Handler roundHandler = new Handler(Looper.getMainLooper());
+    private final Runnable roundTick = this::advanceRound;
+    private RoundController.Phase shownRoundPhase; // main thread
+    private final RoundResolver.Result roundResult = new RoundResolver.Result(); // main thread
+
+    // Landmark recording for offline replay, null when disabled
+    private volatile LandmarkRecorder landmarkRecorder;
+    private final byte[] handedness = new byte[MAX_HANDS];       // result thread
+    private final float[] handednessScores = new float[MAX_HANDS]; // result thread
+
+    // Analysis results reach the UI through a single slot, drained once per display frame
+    private final UiUpdateCoalescer<DetectionSnapshot> uiUpdates = new UiUpdateCoalescer<>(this::applySnapshot);
+    private final PerformanceStats stats = PerformanceStats.getInstance();
+    private final FrameTrace trace = FrameTrace.getInstance();
+    private final DetectionEventStream eventStream = DetectionEventStream.getInstance();
+    private final MatchHistory matchHistory = MatchHistory.getInstance();
+
+    // Last live outcome written to the match history, result thread only
+    private long playersInViewNanos = -1;      // capture time every player came into view
+    private boolean inViewDecisionLogged = false; // an outcome was logged since then
+    private Resolution loggedResolution = Resolution.UNDECIDED;
+    private final RPSGesture[] loggedGestures = new RPSGesture[MAX_HANDS];
+
+    // What the labels currently show, so views are only touched when something changes
+    private int shownPresentMask = -1;
+    private RPSGesture[] shownPlayers;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -89,13 +188,66 @@ public class RPSDetectionActivity extends AppCompatActivity {
         // Keep screen on
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 
+        launchNanos = System.nanoTime();
+        liveStream = getIntent().getBooleanExtra(EXTRA_LIVE_STREAM, true);
+        players = clampPlayers(getIntent().getIntExtra(EXTRA_PLAYERS, LandmarkerHolder.DEFAULT_NUM_HANDS));
+        shownPlayers = new RPSGesture[players];
+        warmStart = landmarkerHolder.isLoaded(liveStream, players);
+        matchHistory.open(this);
+
+        // A screen recreated for a configuration change carries on with the last one's session
+        DetectionSession session = null;
+        if (savedInstanceState != null) {
+            session = DetectionSession.takeRetained();
+        } else {
+            DetectionSession.clearRetained();
+        }
+
+        if (session != null) {
+            restoreSession(session);
+        } else {
+            eventStream.onSessionStarted();
+            setupEngine();
+
+            if (getIntent().getBooleanExtra(EXTRA_ROI_TRACKING, false)) {
+                if (liveStream) {
+                    // Moving crops would break the live stream's tracking between frames
+                    Log.w(TAG, "ROI tracking needs IMAGE mode, ignored with liveStream on");
+                } else {
+                    roiTracker = new RoiTracker();
+                }
+            }
+
+            if (getIntent().getBooleanExtra(EXTRA_MOTION_GATE, true)) {
+                setupMotionGate();
+            }
+
+            if (getIntent().getBooleanExtra(EXTRA_ROUND_MODE, false)) {
+                setupRounds();
+            }
+        }
+        setupInference();
+
+        if (getIntent().getBooleanExtra(EXTRA_RECORD_LANDMARKS, false)) {
+            startLandmarkRecording();
+        }
+
+        if (getIntent().getBooleanExtra(EXTRA_ADAPTIVE_INFERENCE, true)) {
+            inferenceScheduler = new InferenceScheduler(this, this::onAnalysisResolutionChanged);
+            inferenceScheduler.start();
+        }
+
         initializeViews();
         setupUI();
 
-        // Check camera permission
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+        // Recorded frames need no camera
+        String playbackPath = getIntent().getStringExtra(EXTRA_FRAME_SOURCE_PATH);
+        if (playbackPath != null && !playbackPath.isEmpty()) {
+            setupFileFrameSource(playbackPath);
+            setupMediaPipe();
+        } else if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
             setupMediaPipe();
-            setupCamera();
+            setupCameraFrameSource();
         } else {
             ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.CAMERA}, CAMERA_PERMISSION_REQUEST);
         }
@@ -112,12 +264,60 @@ public class RPSDetectionActivity extends AppCompatActivity {
         handImage = findViewById(getResources().getIdentifier("handImage", "id", packageName));
         playersBgView = findViewById(getResources().getIdentifier("playersBgView", "id", packageName));
         overlayView = findViewById(getResources().getIdentifier("overlayView", "id", packageName));
+
+        playerLabels = new TextView[players];
+        playerLabels[0] = player1Label;
+        playerLabels[1] = player2Label;
+        if (players > 2) {
+            addPlayerLabels();
+        }
+        if (getIntent().getBooleanExtra(EXTRA_SKELETON_OVERLAY, false)) {
+            addSkeletonOverlay();
+        }
+    }
+
+    /**
+     * Puts the skeleton's surface right below the box overlay, over the camera preview.
+     */
+    private void addSkeletonOverlay() {
+        SkeletonOverlayView view = new SkeletonOverlayView(this, players);
+        ViewGroup parent = (ViewGroup) overlayView.getParent();
+        parent.addView(view, parent.indexOfChild(overlayView),
+                new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        skeletonView = view;
+    }
+
+    /**
+     * The layout has labels for two players; groups get one more per player in the same row,
+     * styled like the others, with the row split evenly between them.
+     */
+    private void addPlayerLabels() {
+        ViewGroup row = (ViewGroup) playersBgView;
+        for (int p = 2; p < players; p++) {
+            TextView label = new TextView(this);
+            label.setTextColor(player1Label.getCurrentTextColor());
+            label.setTypeface(player1Label.getTypeface());
+            label.setShadowLayer(player1Label.getShadowRadius(), player1Label.getShadowDx(),
+                    player1Label.getShadowDy(), player1Label.getShadowColor());
+            row.addView(label, row.indexOfChild(playerLabels[p - 1]) + 1,
+                    new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 1f));
+            playerLabels[p] = label;
+        }
+
+        float textSize = Math.max(MIN_PLAYER_TEXT_SP, PLAYER_TEXT_SP * 2 / players);
+        for (int p = 0; p < players; p++) {
+            playerLabels[p].setTextSize(TypedValue.COMPLEX_UNIT_SP, textSize);
+            if (p > 0) {
+                playerLabels[p].setGravity(p == players - 1 ? Gravity.RIGHT : Gravity.CENTER_HORIZONTAL);
+            }
+        }
     }
 
     private void setupUI() {
         instructionsLabel.setText("Show your hands to play Rock, Paper, Scissors!");
-        player1Label.setText("Player 1: --");
-        player2Label.setText("Player 2: --");
+        for (int p = 0; p < players; p++) {
+            playerLabels[p].setText("Player " + (p + 1) + ": --");
+        }
         winnerLabel.setText("");
 
         // Hide player labels initially
@@ -134,274 +334,779 @@ public class RPSDetectionActivity extends AppCompatActivity {
         }, 3000);
     }
 
-    private void setupMediaPipe() {
+    private void setupEngine() {
+        int window = getIntent().getIntExtra(EXTRA_STABILIZER_WINDOW, GestureStabilizer.DEFAULT_WINDOW_SIZE);
+        float enter = getIntent().getFloatExtra(EXTRA_STABILIZER_ENTER, GestureStabilizer.DEFAULT_ENTER_RATIO);
+        float exit = getIntent().getFloatExtra(EXTRA_STABILIZER_EXIT, GestureStabilizer.DEFAULT_EXIT_RATIO);
+
         try {
-            BaseOptions baseOptions = BaseOptions.builder()
-                    .setModelAssetPath("models/hand_landmarker.task")
-                    .build();
-
-            HandLandmarker.HandLandmarkerOptions options = HandLandmarker.HandLandmarkerOptions.builder()
-                    .setBaseOptions(baseOptions)
-                    .setRunningMode(RunningMode.IMAGE) // Use IMAGE mode instead of LIVE_STREAM
-                    .setNumHands(2)
-                    .setMinHandDetectionConfidence(0.7f)
-                    .setMinHandPresenceConfidence(0.7f)
-                    .setMinTrackingConfidence(0.5f)
-                    .build();
-
-            handLandmarker = HandLandmarker.createFromOptions(this, options);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to create HandLandmarker", e);
-            Toast.makeText(this, "Failed to initialize hand detection", Toast.LENGTH_LONG).show();
+            engine = new GestureEngine(players, window, enter, exit);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid stabilizer settings, using defaults: " + e.getMessage());
+            engine = new GestureEngine(players, GestureStabilizer.DEFAULT_WINDOW_SIZE,
+                    GestureStabilizer.DEFAULT_ENTER_RATIO, GestureStabilizer.DEFAULT_EXIT_RATIO);
         }
+        frameResult = new FrameResult(engine.getMaxPlayers());
     }
 
-    private void setupCamera() {
-        backgroundExecutor = Executors.newSingleThreadExecutor();
-        cameraProviderFuture = ProcessCameraProvider.getInstance(this);
+    private void restoreSession(DetectionSession session) {
+        if (!session.isReady()) {
+            pendingSession = session;
+        }
+        engine = session.engine;
+        frameResult = session.frameResult;
+        frameConverter = session.frameConverter;
+        motionGate = session.motionGate;
+        roiTracker = session.roiTracker;
+        roundController = session.roundController;
+        if (roundController != null) {
+            // Picks up the result or match screen the last one was showing
+            roundHandler.post(roundTick);
+        }
+        Log.i(TAG, "Continuing retained detection session");
+    }
 
-        cameraProviderFuture.addListener(() -> {
-            try {
-                cameraProvider = cameraProviderFuture.get();
-                bindPreview(cameraProvider);
-            } catch (ExecutionException | InterruptedException e) {
-                Log.e(TAG, "Camera provider initialization failed", e);
-            }
-        }, ContextCompat.getMainExecutor(this));
+    /**
+     * LIVE_STREAM frames are inferred on MediaPipe's thread; IMAGE mode frames get a thread of
+     * their own when pipelined, so conversion and inference overlap. A retained session brings
+     * its frame converter along, sized for the same choice.
+     */
+    private void setupInference() {
+        boolean pipelined = !liveStream && getIntent().getBooleanExtra(EXTRA_PIPELINED,
+                Runtime.getRuntime().availableProcessors() >= 4);
+        if (frameConverter == null) {
+            frameConverter = pipelined
+                    ? new FrameConverter(InferencePipeline.CONVERTER_POOL_SIZE)
+                    : new FrameConverter();
+        }
+        if (pipelined) {
+            pipeline = new InferencePipeline(frameConverter, this::inferPipelined);
+        }
     }
 
-    private void bindPreview(@NonNull ProcessCameraProvider cameraProvider) {
-        Preview preview = new Preview.Builder().build();
-        preview.setSurfaceProvider(previewView.getSurfaceProvider());
+    private void setupMotionGate() {
+        float threshold = getIntent().getFloatExtra(EXTRA_MOTION_THRESHOLD, MotionGate.DEFAULT_THRESHOLD);
+        long maxAgeMs = getIntent().getLongExtra(EXTRA_MOTION_MAX_AGE, MotionGate.DEFAULT_MAX_AGE_MS);
+        try {
+            motionGate = new MotionGate(threshold, maxAgeMs);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid motion gate settings, using defaults: " + e.getMessage());
+            motionGate = new MotionGate();
+        }
+    }
 
-        CameraSelector cameraSelector = new CameraSelector.Builder()
-                .requireLensFacing(CameraSelector.LENS_FACING_FRONT)
-                .build();
+    private void setupRounds() {
+        int bestOf = getIntent().getIntExtra(EXTRA_BEST_OF, RoundController.DEFAULT_BEST_OF);
+        try {
+            roundController = new RoundController(players, bestOf, RoundController.DEFAULT_BEAT_MS,
+                    RoundController.DEFAULT_CAPTURE_BEFORE_MS, RoundController.DEFAULT_CAPTURE_AFTER_MS,
+                    RoundController.DEFAULT_RESULT_MS);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid round settings, using defaults: " + e.getMessage());
+            roundController = new RoundController(players, RoundController.DEFAULT_BEST_OF);
+        }
+    }
 
-        imageAnalysis = new ImageAnalysis.Builder()
-                .setTargetResolution(new Size(640, 480))
-                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
-                .build();
+    private void setupMediaPipe() {
+        // The shared landmarker is loaded off the main thread, frames are skipped until it is ready
+        landmarkerHolder.acquire(this, liveStream, players, resultListener, (landmarker, error) -> {
+            if (landmarker == null) {
+                Log.e(TAG, "Failed to create HandLandmarker", error);
+                runOnUiThread(() -> Toast.makeText(this, "Failed to initialize hand detection",
+                        Toast.LENGTH_LONG).show());
+                return;
+            }
+            synchronized (landmarkerLock) {
+                if (destroyed) {
+                    landmarkerHolder.release(resultListener, -1);
+                    return;
+                }
+                // Published by the volatile write below, the analyzer reads the landmarker first
+                lastSubmittedTimestampMs = landmarkerHolder.getLastTimestampMs();
+                handLandmarker = landmarker;
+                if (playback && !playbackStarted) {
+                    // Every recorded frame counts, start once none would be dropped
+                    playbackStarted = true;
+                    frameSource.start(frameListener);
+                }
+            }
+        });
+    }
 
-        imageAnalysis.setAnalyzer(backgroundExecutor, this::analyzeImage);
+    private void setupCameraFrameSource() {
+        Size resolution = inferenceScheduler != null
+                ? inferenceScheduler.getAnalysisResolution()
+                : new Size(640, 480);
+        frameSource = new CameraFrameSource(this, previewView, resolution);
+        frameSource.start(frameListener);
+    }
 
-        cameraProvider.unbindAll();
-        cameraProvider.bindToLifecycle(
-                (LifecycleOwner) this,
-                cameraSelector,
-                preview,
-                imageAnalysis
-        );
+    /**
+     * Plays recorded frames instead of the camera, from when the landmarker is ready. The screen
+     * closes once they run out, so a benchmark can wait for the session to end and read the
+     * performance stats.
+     */
+    private void setupFileFrameSource(String path) {
+        File file = new File(path);
+        if (!file.isAbsolute()) {
+            // Reachable with adb push, no root or storage permission needed
+            file = new File(getExternalFilesDir(null), path);
+        }
+        frameSource = new FileFrameSource(file,
+                getIntent().getStringExtra(EXTRA_FRAME_SOURCE_FORMAT),
+                getIntent().getIntExtra(EXTRA_FRAME_SOURCE_WIDTH, 0),
+                getIntent().getIntExtra(EXTRA_FRAME_SOURCE_HEIGHT, 0),
+                getIntent().getFloatExtra(EXTRA_FRAME_SOURCE_FPS, 0f),
+                getIntent().getIntExtra(EXTRA_FRAME_SOURCE_LOOPS, 1),
+                getIntent().getIntExtra(EXTRA_FRAME_SOURCE_ROTATION, 0));
+        playback = true;
     }
 
-    private void analyzeImage(ImageProxy imageProxy) {
+    private final FrameSource.Listener frameListener = new FrameSource.Listener() {
+        @Override
+        public void onFrame(FrameSource.Frame frame) {
+            analyzeImage(frame);
+        }
+
+        @Override
+        public void onEnd() {
+            Log.i(TAG, "Frame source ended");
+            runOnUiThread(() -> finish());
+        }
+    };
+
+    /**
+     * Asks the source for a new analysis size, the camera rebinds only the analysis use case.
+     */
+    private void onAnalysisResolutionChanged(Size resolution) {
+        if (frameSource == null || isFinishing()) return;
+        frameSource.setTargetResolution(resolution);
+    }
+
+    private void analyzeImage(FrameSource.Frame frame) {
         if (handLandmarker == null) {
-            imageProxy.close();
+            frame.close();
+            return;
+        }
+        // The last screen's frame threads may still be using the session it handed over
+        DetectionSession handover = pendingSession;
+        if (handover != null) {
+            if (!handover.isReady()) {
+                frame.close();
+                return;
+            }
+            pendingSession = null;
+        }
+        stats.increment(PerformanceStats.Counter.FRAMES_RECEIVED);
+        // Trace frames by capture time in milliseconds, the base snapshots use
+        long frameId = trace.isEnabled()
+                ? PerformanceStats.cameraToNanoTime(frame.getTimestampNanos()) / 1_000_000L : 0;
+
+        // Skip frames the scheduler doesn't need before paying for conversion
+        if (inferenceScheduler != null
+                && !inferenceScheduler.shouldRunInference(frame.getTimestampNanos())) {
+            stats.increment(PerformanceStats.Counter.FRAMES_SKIPPED);
+            trace.instant(FrameTrace.Stage.FRAME_SKIPPED, frameId, 0, 0, 0f, 0f, 0f, 0f);
+            frame.close();
             return;
         }
 
-        frameWidth = imageProxy.getWidth();
-        frameHeight = imageProxy.getHeight();
+        // Static frames reuse the last result, or the one still being inferred
+        if (motionGate != null && firstResultSeen
+                && !motionGate.shouldInfer(frame, System.nanoTime())) {
+            frame.close();
+            if ((liveStream || pipeline != null) && lastInferredTimestampMs > lastResultTimestampMs) {
+                stats.increment(PerformanceStats.Counter.FRAMES_SKIPPED);
+                trace.instant(FrameTrace.Stage.FRAME_SKIPPED, frameId, 0, 0, 0f, 0f, 0f, 0f);
+            } else {
+                stats.increment(PerformanceStats.Counter.FRAMES_REUSED);
+                reuseLastResult(nextFrameTimestampMs(frame));
+            }
+            return;
+        }
 
-        // Convert ImageProxy to Bitmap
-        Bitmap bitmap = imageProxy.toBitmap();
+        frameWidth = frame.getWidth();
+        frameHeight = frame.getHeight();
+        long timestampMs = nextFrameTimestampMs(frame);
+        lastInferredTimestampMs = timestampMs;
+        int rotationDegrees = frame.getRotationDegrees();
+        ImageProcessingOptions processingOptions = frameConverter.getProcessingOptions(rotationDegrees);
+        long submitNanos = System.nanoTime();
+
+        // Copy the RGBA pixels (or the tracked region of them) into a pooled buffer, so the
+        // frame can go back to its source before inference starts
+        MPImage mpImage;
+        boolean cropped = false;
+        try {
+            if (roiTracker != null && roiTracker.nextRegion(submitRegion)) {
+                mpImage = convertRegion(frame, rotationDegrees);
+                cropped = true;
+            } else {
+                mpImage = frameConverter.convert(frame);
+            }
+        } finally {
+            frame.close();
+        }
+        stats.recordSince(PerformanceStats.Stage.CONVERT, submitNanos);
+        trace.since(FrameTrace.Stage.CONVERT, frameId, submitNanos, cropped ? 1 : 0, 0f);
 
-        // Convert to MPImage
-        MPImage mpImage = new BitmapImageBuilder(bitmap).build();
+        if (roiTracker != null) {
+            roiTracker.onSubmitted(timestampMs, submitNanos, cropped, submitRegion);
+        }
+        stats.increment(PerformanceStats.Counter.FRAMES_ANALYZED);
+        if (pipeline != null) {
+            // Inferred on the pipeline's thread while the next frame is converted
+            pipeline.submit(mpImage, processingOptions, timestampMs, submitNanos);
+            return;
+        }
+        stats.onSubmitted(timestampMs, System.nanoTime());
 
         try {
-            // Use detect() instead of detectAsync() since we're in IMAGE mode
-            HandLandmarkerResult result = handLandmarker.detect(mpImage);
+            if (liveStream) {
+                // Returns immediately, the result arrives in onLiveStreamResult()
+                handLandmarker.detectAsync(mpImage, processingOptions, timestampMs);
+            } else {
+                HandLandmarkerResult result = handLandmarker.detect(mpImage, processingOptions);
+                processResult(result, timestampMs);
+            }
+        } catch (Exception e) {
+            stats.increment(PerformanceStats.Counter.ERRORS);
+            Log.e(TAG, "Hand detection error", e);
+        }
+    }
 
-            // Process result on main thread
-            runOnUiThread(() -> processResult(result));
+    /**
+     * Crops the frame to the tracked region in {@link #submitRegion}. The region is snapped to
+     * the pixels actually copied, since landmarks come back relative to the crop.
+     */
+    private MPImage convertRegion(FrameSource.Frame frame, int rotationDegrees) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
 
+        RoiTracker.toBufferRegion(submitRegion, rotationDegrees, bufferRegion);
+        FrameConverter.toPixelRegion(bufferRegion, width, height, pixelRegion);
+
+        bufferRegion[0] = pixelRegion[0] / (float) width;
+        bufferRegion[1] = pixelRegion[1] / (float) height;
+        bufferRegion[2] = (pixelRegion[0] + pixelRegion[2]) / (float) width;
+        bufferRegion[3] = (pixelRegion[1] + pixelRegion[3]) / (float) height;
+        RoiTracker.toUprightRegion(bufferRegion, rotationDegrees, submitRegion);
+
+        return frameConverter.convert(frame, pixelRegion[0], pixelRegion[1], pixelRegion[2], pixelRegion[3]);
+    }
+
+    /**
+     * LIVE_STREAM mode requires strictly increasing timestamps. The camera sensor clock
+     * is monotonic, but two frames can land on the same millisecond, so clamp them.
+     */
+    private long nextFrameTimestampMs(FrameSource.Frame frame) {
+        long timestampMs = frame.getTimestampNanos() / 1_000_000L;
+        if (timestampMs <= lastSubmittedTimestampMs) {
+            timestampMs = lastSubmittedTimestampMs + 1;
+        }
+        lastSubmittedTimestampMs = timestampMs;
+        return timestampMs;
+    }
+
+    /**
+     * Infers a frame handed over by the {@link InferencePipeline}, on its thread.
+     */
+    private void inferPipelined(MPImage image, ImageProcessingOptions options, long timestampMs) {
+        HandLandmarker landmarker = handLandmarker;
+        if (landmarker == null) return;
+
+        stats.onSubmitted(timestampMs, System.nanoTime());
+        try {
+            processResult(landmarker.detect(image, options), timestampMs);
         } catch (Exception e) {
+            stats.increment(PerformanceStats.Counter.ERRORS);
             Log.e(TAG, "Hand detection error", e);
+        } finally {
+            // Lets the motion gate reuse this result from the analyzer thread
+            lastResultTimestampMs = timestampMs;
         }
-
-        imageProxy.close();
     }
 
-    private void processResult(HandLandmarkerResult result) {
-        if (result.landmarks().isEmpty()) {
-            lastDetections.clear();
-            updateUI(lastDetections);
-            overlayView.clear();
+    private void onLiveStreamResult(HandLandmarkerResult result, MPImage input) {
+        // Drop results that arrive out of order, a newer frame has already been shown
+        if (result.timestampMs() <= lastResultTimestampMs) {
+            stats.increment(PerformanceStats.Counter.RESULTS_STALE);
             return;
         }
 
-        List<HandDetection> detections = new ArrayList<>();
+        synchronized (resultLock) {
+            // The screen is gone, its session may already belong to the next one
+            if (resultsDetached) return;
+            try {
+                processResult(result, result.timestampMs());
+            } finally {
+                // Published once processing is done, so a reuse on the analyzer thread never overlaps it
+                lastResultTimestampMs = result.timestampMs();
+            }
+        }
+    }
+
+    /**
+     * Adapts a MediaPipe result to the {@link GestureEngine}. Runs on the analysis thread (IMAGE
+     * mode) or MediaPipe's result thread (LIVE_STREAM mode), never on the main thread; the
+     * outcome is published as an immutable snapshot for the UI.
+     */
+    private void processResult(HandLandmarkerResult result, long timestampMs) {
+        long startNanos = System.nanoTime();
+        stats.onResult(timestampMs, startNanos);
+        if (!firstResultSeen) {
+            firstResultSeen = true;
+            recordFirstDetection(startNanos);
+        }
+
+        // Landmarks of a cropped frame are relative to the crop
+        boolean cropped = roiTracker != null
+                && roiTracker.resolveFrame(timestampMs, System.nanoTime(), resultRegion);
 
-        for (int i = 0; i < result.landmarks().size(); i++) {
-            List<NormalizedLandmark> landmarks = result.landmarks().get(i);
+        inputHands.clear();
+        List<List<NormalizedLandmark>> allLandmarks = result.landmarks();
+        for (int i = 0; i < allLandmarks.size() && inputHands.size() < players; i++) {
+            List<NormalizedLandmark> landmarks = allLandmarks.get(i);
+            if (landmarks.size() < GestureClassifier.LANDMARKS_PER_HAND) continue;
 
-            // Simplified - no handedness detection for now
-            String handLabel = "Hand " + (i + 1);
-            float confidence = 1.0f;
+            int hand = inputHands.size();
+            fillLandmarkBuffer(landmarks, landmarkBuffer, hand);
+            if (cropped) {
+                toFullFrame(landmarkBuffer, hand, resultRegion);
+            }
+            inputIndex[hand] = i;
+            inputHands.add(landmarks);
+        }
 
-            RPSGesture gesture = classifyGesture(landmarks);
-            RectF boundingBox = getBoundingBox(landmarks);
+        fillHandedness(result);
+        processHands(timestampMs, startNanos, cropped, false);
+    }
 
-            Log.d(TAG, "Before sorting - Detection " + i + ": " + gesture.getDisplayName() +
-                    " at box left=" + boundingBox.left + " right=" + boundingBox.right);
+    /**
+     * Runs the hands of the last result again for a frame the motion gate found unchanged, so
+     * stabilizers, rounds and the overlay keep moving in time without an inference. Runs on the
+     * analyzer thread; in LIVE_STREAM and pipelined mode only once the last inferred frame's
+     * result has been processed (its timestamp is published after {@link #processResult}
+     * returns), so the two never overlap.
+     */
+    private void reuseLastResult(long timestampMs) {
+        lastResultTimestampMs = timestampMs;
+        processHands(timestampMs, System.nanoTime(), false, true);
+    }
 
-            detections.add(new HandDetection(gesture, boundingBox, landmarks, handLabel, confidence));
+    /**
+     * Classifies the hands in {@link #landmarkBuffer} and publishes the snapshot.
+     */
+    private void processHands(long timestampMs, long startNanos, boolean cropped, boolean reused) {
+        LandmarkRecorder recorder = landmarkRecorder;
+        if (recorder != null) {
+            recorder.record(timestampMs, landmarkBuffer, inputHands.size(), handedness, handednessScores);
         }
 
-        // Sort by flipped X coordinates to match what user sees on screen
-        // After flipping: leftmost on screen = Player 1, rightmost on screen = Player 2
-        Collections.sort(detections, (a, b) -> {
-            float flippedALeft = 1.0f - a.boundingBox.right;  // Flip A's X
-            float flippedBLeft = 1.0f - b.boundingBox.right;  // Flip B's X
-            return Float.compare(flippedALeft, flippedBLeft);
-        });
+        engine.process(landmarkBuffer, inputHands.size(), frameResult);
+
+        SkeletonOverlayView skeleton = skeletonView;
+        if (skeleton != null) {
+            skeleton.submit(landmarkBuffer, frameResult.playerHand, frameResult.gestures, frameResult.maxPlayers);
+        }
 
-        // Debug after sorting
-        for (int i = 0; i < detections.size(); i++) {
-            HandDetection det = detections.get(i);
-            float flippedLeft = 1.0f - det.boundingBox.right;
-            Log.d(TAG, "After sorting - Player " + (i + 1) + ": " + det.gesture.getDisplayName() +
-                    " at flipped position=" + flippedLeft);
+        long captureNanos = PerformanceStats.cameraToNanoTime(timestampMs * 1_000_000L);
+        long frameId = captureNanos / 1_000_000L;
+        if (roundController == null) {
+            logLiveOutcome(captureNanos);
+            if (frameResult.resolution.resolution != Resolution.UNDECIDED) {
+                trace.instant(FrameTrace.Stage.OUTCOME, frameId, 0, frameResult.resolution.resolution.ordinal(),
+                        frameResult.resolution.winnerMask, 0f, 0f, 0f);
+            }
+        }
+        if (roundController != null && roundController.onFrame(captureNanos / 1_000_000L, frameResult)) {
+            roundHandler.post(roundTick);
+        }
+
+        if (roiTracker != null && !reused) {
+            // A reused result says nothing new about where the hands are
+            roiTracker.onResult(frameResult, handednessScores, cropped, resultRegion);
         }
 
-        lastDetections = detections;
-        updateUI(detections);
-        overlayView.setDetections(detections);
+        // Build the overlay detections in player order
+        List<HandDetection> detections = new ArrayList<>(frameResult.handCount);
+        for (int player = 0; player < frameResult.maxPlayers; player++) {
+            int hand = frameResult.playerHand[player];
+            if (hand < 0) continue;
+
+            int b = player * 4;
+            RPSGesture gesture = frameResult.gestures[player];
+            RectF boundingBox = new RectF(frameResult.boxes[b], frameResult.boxes[b + 1],
+                    frameResult.boxes[b + 2], frameResult.boxes[b + 3]);
+
+            trace.instant(FrameTrace.Stage.PLAYER, frameId, player + 1, gesture.ordinal(),
+                    boundingBox.left, boundingBox.top, boundingBox.right, boundingBox.bottom);
+
+            String handLabel = handLabel(handedness[hand], hand);
+            detections.add(new HandDetection(player, gesture, boundingBox, inputHands.get(hand),
+                    handLabel, frameResult.confidences[player]));
+        }
+
+        publishSnapshot(Collections.unmodifiableList(detections), captureNanos);
+        stats.recordSince(PerformanceStats.Stage.PROCESS, startNanos);
+        trace.since(FrameTrace.Stage.PROCESS, frameId, startNanos, 0, frameResult.handCount);
     }
 
-    private RPSGesture classifyGesture(List<NormalizedLandmark> landmarks) {
-        if (landmarks.size() < 21) return RPSGesture.UNKNOWN;
+    /**
+     * Adds the outcome to the match history when it is decided and differs from the last one
+     * logged. Latency runs from every player being in view, or from the previous decision.
+     */
+    private void logLiveOutcome(long captureNanos) {
+        if (frameResult.handCount < players) {
+            playersInViewNanos = -1;
+            loggedResolution = Resolution.UNDECIDED;
+            return;
+        }
+        if (playersInViewNanos < 0) {
+            playersInViewNanos = captureNanos;
+            inViewDecisionLogged = false;
+        }
 
-        boolean thumb = isThumbExtended(landmarks, 2, 3, 4);
-        boolean index = isFingerExtended(landmarks, 5, 6, 7);
-        boolean middle = isFingerExtended(landmarks, 9, 10, 11);
-        boolean ring = isFingerExtended(landmarks, 13, 14, 15);
-        boolean pinky = isFingerExtended(landmarks, 17, 18, 19);
+        RoundResolver.Result result = frameResult.resolution;
+        if (result.resolution == Resolution.UNDECIDED) return;
 
-        if (index && middle && !ring && !pinky) return RPSGesture.SCISSORS;
+        boolean changed = result.resolution != loggedResolution;
+        for (int p = 0; p < players && !changed; p++) {
+            changed = frameResult.stableGestures[p] != loggedGestures[p];
+        }
+        if (!changed) return;
+
+        // Only the first outcome since the players came into view has a decision latency; later
+        // ones are new throws of players who stayed in view, with no start to measure from
+        long latencyMs = inViewDecisionLogged ? -1 : (captureNanos - playersInViewNanos) / 1_000_000L;
+        matchHistory.append(System.currentTimeMillis(), MatchHistory.SOURCE_FRAME, players, result.resolution,
+                result.winningGesture, result.winnerMask, latencyMs,
+                frameResult.stableGestures, frameResult.confidences);
+        loggedResolution = result.resolution;
+        System.arraycopy(frameResult.stableGestures, 0, loggedGestures, 0, players);
+        inViewDecisionLogged = true;
+    }
 
-        int extendedCount = 0;
-        if (thumb) extendedCount++;
-        if (index) extendedCount++;
-        if (middle) extendedCount++;
-        if (ring) extendedCount++;
-        if (pinky) extendedCount++;
+    private void recordFirstDetection(long nowNanos) {
+        long nanos = nowNanos - launchNanos;
+        stats.record(warmStart ? PerformanceStats.Stage.FIRST_DETECTION_WARM
+                : PerformanceStats.Stage.FIRST_DETECTION_COLD, nanos);
+        Log.i(TAG, "Time to first detection: " + nanos / 1_000_000 + " ms ("
+                + (warmStart ? "warm" : "cold") + " start)");
+    }
 
-        if (extendedCount >= 4) return RPSGesture.PAPER;
-        if (extendedCount <= 1) return RPSGesture.ROCK;
+    /**
+     * Maps one hand's landmarks from crop-relative to full-frame normalized coordinates.
+     */
+    private static void toFullFrame(float[] buffer, int hand, float[] region) {
+        float scaleX = region[2] - region[0];
+        float scaleY = region[3] - region[1];
+        int offset = hand * GestureClassifier.FLOATS_PER_HAND;
+        for (int i = 0; i < GestureClassifier.LANDMARKS_PER_HAND; i++, offset += GestureClassifier.FLOATS_PER_LANDMARK) {
+            buffer[offset] = region[0] + buffer[offset] * scaleX;
+            buffer[offset + 1] = region[1] + buffer[offset + 1] * scaleY;
+            buffer[offset + 2] *= scaleX; // depth uses the same scale as x
+        }
+    }
 
-        return RPSGesture.UNKNOWN;
+    private void publishSnapshot(List<HandDetection> detections, long captureNanos) {
+        // In round mode only the capture window decides, a per-frame outcome means nothing
+        boolean perFrame = roundController == null;
+        DetectionSnapshot snapshot = new DetectionSnapshot(detections,
+                Arrays.copyOf(frameResult.stableGestures, players),
+                perFrame ? frameResult.outcome : Outcome.NONE,
+                perFrame ? frameResult.resolution.resolution : Resolution.UNDECIDED,
+                perFrame ? frameResult.resolution.winnerMask : 0,
+                frameWidth,
+                frameHeight,
+                captureNanos);
+
+        if (inferenceScheduler != null && roundController == null) {
+            inferenceScheduler.onSnapshot(snapshot);
+        }
+        eventStream.onSnapshot(snapshot);
+        if (uiUpdates.publish(snapshot)) {
+            stats.increment(PerformanceStats.Counter.SNAPSHOTS_SUPERSEDED);
+        }
     }
 
-    private boolean isFingerExtended(List<NormalizedLandmark> landmarks, int mcp, int pip, int dip) {
-        return getAngle(landmarks.get(mcp), landmarks.get(pip), landmarks.get(dip)) >= 160.0;
+    /**
+     * Applies the latest snapshot, called on the main thread at most once per display frame.
+     */
+    private void applySnapshot(DetectionSnapshot snapshot) {
+        stats.recordSince(PerformanceStats.Stage.UI_QUEUE, snapshot.publishTimeNanos);
+        stats.recordSince(PerformanceStats.Stage.END_TO_END, snapshot.captureTimeNanos);
+        long startNanos = System.nanoTime();
+
+        if (snapshot.detections.isEmpty()) {
+            overlayView.clear();
+        } else {
+            overlayView.setDetections(snapshot.detections);
+        }
+        updateUI(snapshot);
+        trace.since(FrameTrace.Stage.UI, snapshot.captureTimeNanos / 1_000_000L, startNanos, 0,
+                snapshot.getHandCount());
     }
 
-    private boolean isThumbExtended(List<NormalizedLandmark> landmarks, int mcp, int ip, int tip) {
-        return getAngle(landmarks.get(mcp), landmarks.get(ip), landmarks.get(tip)) >= 160.0;
+    /**
+     * Copies the handedness of the hands in {@link #inputHands}, for the detections' hand labels
+     * and the recorder.
+     */
+    private void fillHandedness(HandLandmarkerResult result) {
+        List<List<Category>> categories = result.handedness();
+        for (int hand = 0; hand < inputHands.size(); hand++) {
+            handedness[hand] = LandmarkRecording.HANDEDNESS_UNKNOWN;
+            handednessScores[hand] = 0f;
+
+            int index = inputIndex[hand];
+            if (index >= categories.size() || categories.get(index).isEmpty()) continue;
+
+            Category category = categories.get(index).get(0);
+            if ("Left".equals(category.categoryName())) {
+                handedness[hand] = LandmarkRecording.HANDEDNESS_LEFT;
+            } else if ("Right".equals(category.categoryName())) {
+                handedness[hand] = LandmarkRecording.HANDEDNESS_RIGHT;
+            }
+            handednessScores[hand] = category.score();
+        }
     }
 
-    private double getAngle(NormalizedLandmark a, NormalizedLandmark b, NormalizedLandmark c) {
-        double abX = a.x() - b.x();
-        double abY = a.y() - b.y();
-        double cbX = c.x() - b.x();
-        double cbY = c.y() - b.y();
+    /**
+     * Names the player's hand. MediaPipe assumes a mirrored selfie image, but front camera frames
+     * reach it unmirrored, so its "Left" is the player's right hand.
+     */
+    private static String handLabel(byte handedness, int hand) {
+        switch (handedness) {
+            case LandmarkRecording.HANDEDNESS_LEFT:
+                return "Right";
+            case LandmarkRecording.HANDEDNESS_RIGHT:
+                return "Left";
+            default:
+                return "Hand " + (hand + 1);
+        }
+    }
 
-        double dot = abX * cbX + abY * cbY;
-        double magAB = Math.sqrt(abX * abX + abY * abY);
-        double magCB = Math.sqrt(cbX * cbX + cbY * cbY);
+    private void startLandmarkRecording() {
+        File dir = getExternalFilesDir("landmarks");
+        if (dir == null) {
+            dir = new File(getFilesDir(), "landmarks");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.e(TAG, "Cannot create recording directory " + dir);
+            return;
+        }
 
-        if (magAB * magCB == 0) return 0;
+        File file = new File(dir, "landmarks-" + System.currentTimeMillis() + ".rpsl");
+        try {
+            landmarkRecorder = new LandmarkRecorder(file);
+            Log.i(TAG, "Recording landmarks to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Error starting landmark recording: " + e.getMessage());
+        }
+    }
 
-        double cosAngle = Math.max(-1, Math.min(1, dot / (magAB * magCB)));
-        return Math.acos(cosAngle) * 180.0 / Math.PI;
+    /**
+     * Stops recording once the frame source and the pipeline were stopped. Frames that start
+     * processing from now on no longer see the recorder; the close waits on a background thread
+     * for the frame threads to finish the frame they are on, so the last one is written whole,
+     * and keeps the writer's join off the main thread.
+     */
+    private void stopLandmarkRecording() {
+        LandmarkRecorder recorder = landmarkRecorder;
+        if (recorder == null) return;
+        landmarkRecorder = null;
+
+        new Thread(() -> {
+            if (!awaitFrameThreads()) {
+                // Still safe: close() waits for a frame inside record(), later ones are rejected
+                Log.w(TAG, "Frame threads still busy, closing the landmark recording anyway");
+            }
+            try {
+                recorder.close();
+                Log.i(TAG, "Recorded " + recorder.getRecordedFrames() + " frames, dropped "
+                        + recorder.getDroppedFrames());
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing landmark recording: " + e.getMessage());
+            }
+        }, "LandmarkRecorderClose").start();
     }
 
-    private RectF getBoundingBox(List<NormalizedLandmark> landmarks) {
-        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
-        float maxX = Float.MIN_VALUE, maxY = Float.MIN_VALUE;
+    /**
+     * Copies the landmarks of one hand into the flat engine buffer.
+     */
+    private static void fillLandmarkBuffer(List<NormalizedLandmark> landmarks, float[] buffer, int hand) {
+        int offset = hand * GestureClassifier.FLOATS_PER_HAND;
+        for (int i = 0; i < GestureClassifier.LANDMARKS_PER_HAND; i++) {
+            NormalizedLandmark landmark = landmarks.get(i);
+            buffer[offset++] = landmark.x();
+            buffer[offset++] = landmark.y();
+            buffer[offset++] = landmark.z();
+        }
+    }
 
-        // Find the bounding box in normalized coordinates (0.0 to 1.0)
-        for (NormalizedLandmark landmark : landmarks) {
-            minX = Math.min(minX, landmark.x());
-            minY = Math.min(minY, landmark.y());
-            maxX = Math.max(maxX, landmark.x());
-            maxY = Math.max(maxY, landmark.y());
+    /**
+     * Moves the round to the current time and shows it. Runs on the main thread, scheduled by
+     * itself while a round is on and by the first frame with every player otherwise.
+     */
+    private void advanceRound() {
+        roundHandler.removeCallbacks(roundTick);
+        long delay = roundController.advance(System.nanoTime() / 1_000_000L);
+        RoundController.Phase phase = roundController.getPhase();
+
+        if (inferenceScheduler != null) {
+            // Full rate only while throws are being captured
+            inferenceScheduler.setGameState(phase == RoundController.Phase.CAPTURE
+                    ? InferenceScheduler.GameState.ROUND_IN_PROGRESS
+                    : InferenceScheduler.GameState.IDLE);
         }
 
-        // Add some padding in normalized space
-        float padding = 0.05f; // 5% padding
-        minX = Math.max(0.0f, minX - padding);
-        minY = Math.max(0.0f, minY - padding);
-        maxX = Math.min(1.0f, maxX + padding);
-        maxY = Math.min(1.0f, maxY + padding);
+        switch (phase) {
+            case COUNTDOWN:
+            case CAPTURE:
+                setLabel(winnerLabel, RoundController.COUNTDOWN_WORDS[roundController.getBeat()]);
+                break;
+            case RESULT:
+            case MATCH_OVER:
+                if (phase != shownRoundPhase) {
+                    showRoundResult(phase == RoundController.Phase.MATCH_OVER);
+                }
+                break;
+            default:
+                setLabel(winnerLabel, "");
+                break;
+        }
+        shownRoundPhase = phase;
 
-        // Return normalized coordinates - scaling will be done in overlay
-        return new RectF(minX, minY, maxX, maxY);
+        if (delay >= 0) {
+            roundHandler.postDelayed(roundTick, delay);
+        }
     }
 
-    private void updateUI(List<HandDetection> detections) {
-        // Sort detections left to right to assign players consistently
-        List<HandDetection> sortedDetections = new ArrayList<>(detections);
-        Collections.sort(sortedDetections, (a, b) -> Float.compare(a.boundingBox.left, b.boundingBox.left));
+    private void showRoundResult(boolean matchOver) {
+        roundController.getRoundResult(roundResult);
+        RPSGesture[] throwsMade = new RPSGesture[players];
+        int[] wins = new int[players];
+        for (int p = 0; p < players; p++) {
+            throwsMade[p] = roundController.getThrow(p);
+            wins[p] = roundController.getWins(p);
+        }
+        int matchWinners = roundController.getMatchWinners();
+
+        String text;
+        if (roundResult.resolution == Resolution.UNDECIDED) {
+            text = "Missed the shot, again!";
+        } else if (matchOver) {
+            int[] ranked = wins.clone();
+            Arrays.sort(ranked);
+            StringBuilder score = new StringBuilder();
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                score.append(ranked[i]).append(i > 0 ? " - " : "");
+            }
+            text = describePlayers(matchWinners, "wins", "win") + " the match " + score + "!";
+        } else {
+            StringBuilder score = new StringBuilder();
+            for (int p = 0; p < players; p++) {
+                score.append(wins[p]).append(p < players - 1 ? " - " : "");
+            }
+            text = getWinnerText(roundResult.resolution, roundResult.winnerMask) + " (" + score + ")";
+        }
 
-        if (sortedDetections.size() >= 2) {
-            // Reverse the order for top labels and game logic to match bounding boxes
-            HandDetection p1 = sortedDetections.get(1); // What should be Player 1 (left side)
-            HandDetection p2 = sortedDetections.get(0); // What should be Player 2 (right side)
+        trace.instant(FrameTrace.Stage.ROUND, System.nanoTime() / 1_000_000L, 0, roundResult.resolution.ordinal(),
+                roundController.getRound(), roundResult.winnerMask, 0f, 0f);
+        setLabel(winnerLabel, text);
 
-            // Debug logging to check player assignments
-            Log.d(TAG, "Player 1 (left): " + p1.gesture.getDisplayName());
-            Log.d(TAG, "Player 2 (right): " + p2.gesture.getDisplayName());
+        eventStream.onRoundResult(roundController.getRound(), throwsMade, roundResult.resolution,
+                roundResult.winnerMask, wins, matchWinners);
 
-            player1Label.setText("Player 1: " + p1.gesture.getDisplayName());
-            player2Label.setText("Player 2: " + p2.gesture.getDisplayName());
+        float[] confidences = new float[players];
+        for (int p = 0; p < players; p++) {
+            confidences[p] = roundController.getThrowConfidence(p);
+        }
+        matchHistory.append(System.currentTimeMillis(), MatchHistory.SOURCE_ROUND, players, roundResult.resolution,
+                roundResult.winningGesture, roundResult.winnerMask, roundController.getDecisionLatencyMs(),
+                throwsMade, confidences);
+    }
 
-            String winner = determineWinner(p1.gesture, p2.gesture);
-            if (winner != null) {
-                Log.d(TAG, "Winner: " + winner);
+    private void updateUI(DetectionSnapshot snapshot) {
+        // Only who is in view and the stabilized gestures feed the labels
+        int handCount = snapshot.getHandCount();
+        boolean changed = snapshot.presentMask != shownPresentMask;
+        for (int p = 0; p < players && !changed; p++) {
+            changed = snapshot.getPlayer(p) != shownPlayers[p];
+        }
+        if (!changed) {
+            return;
+        }
+        shownPresentMask = snapshot.presentMask;
+
+        for (int p = 0; p < players; p++) {
+            RPSGesture gesture = snapshot.getPlayer(p);
+            shownPlayers[p] = gesture;
+
+            String state;
+            if (snapshot.isPresent(p)) {
+                state = gesture.getDisplayName();
+            } else {
+                // Players missing while others are in view are waited for
+                state = handCount == 0 ? "--" : "Waiting...";
             }
-            winnerLabel.setText(winner != null ? winner : "");
+            setLabel(playerLabels[p], "Player " + (p + 1) + ": " + state);
+        }
 
-        } else if (sortedDetections.size() == 1) {
-            // Show the detected gesture for Player 1, keep Player 2 as waiting
-            player1Label.setText("Player 1: " + sortedDetections.get(0).gesture.getDisplayName());
-            player2Label.setText("Player 2: Waiting...");
-            winnerLabel.setText(""); // No winner with only one player
-        } else {
-            // No hands detected
-            player1Label.setText("Player 1: --");
-            player2Label.setText("Player 2: --");
-            winnerLabel.setText("");
-        }
-    }
-
-    private String determineWinner(RPSGesture g1, RPSGesture g2) {
-        if (g1 == g2) return "It's a Tie!";
-
-        // Rock Paper Scissors rules:
-        // Rock beats Scissors
-        // Paper beats Rock
-        // Scissors beats Paper
-        switch (g1) {
-            case ROCK:
-                return g2 == RPSGesture.SCISSORS ? "Player 1 Wins!" : "Player 2 Wins!";
-            case PAPER:
-                return g2 == RPSGesture.ROCK ? "Player 1 Wins!" : "Player 2 Wins!";
-            case SCISSORS:
-                return g2 == RPSGesture.PAPER ? "Player 1 Wins!" : "Player 2 Wins!";
+        if (roundController == null) {
+            // No winner until every player is in view
+            setLabel(winnerLabel, getWinnerText(snapshot.resolution, snapshot.winnerMask));
+        }
+    }
+
+    /**
+     * Sets the text only if it differs, so unchanged labels don't request a layout pass.
+     */
+    private static void setLabel(TextView label, String text) {
+        if (!text.contentEquals(label.getText())) {
+            label.setText(text);
+        }
+    }
+
+    private static String getWinnerText(Resolution resolution, int winnerMask) {
+        switch (resolution) {
+            case DRAW:
+                return "It's a Tie!";
+            case DECIDED:
+                return describePlayers(winnerMask, "Wins!", "Win!");
             default:
-                return null;
+                return "";
+        }
+    }
+
+    /**
+     * Names the players in {@code mask}, e.g. "Player 2 Wins!" or "Players 1, 3 & 4 Win!".
+     */
+    private static String describePlayers(int mask, String singularVerb, String pluralVerb) {
+        int count = Integer.bitCount(mask);
+        StringBuilder text = new StringBuilder(count == 1 ? "Player " : "Players ");
+        int named = 0;
+        for (int p = 0; p < Integer.SIZE; p++) {
+            if ((mask & (1 << p)) == 0) continue;
+            if (named > 0) {
+                text.append(named == count - 1 ? " & " : ", ");
+            }
+            text.append(p + 1);
+            named++;
         }
+        return text.append(' ').append(count == 1 ? singularVerb : pluralVerb).toString();
+    }
+
+    /**
+     * Number of players the screen is set up for, within what the landmarker can track.
+     */
+    static int clampPlayers(int players) {
+        return Math.max(MIN_PLAYERS, Math.min(MAX_HANDS, players));
     }
 
     private void resetGame() {
-        lastDetections.clear();
         // overlayView.clear(); // Disabled for now
-        player1Label.setText("Player 1: --");
-        player2Label.setText("Player 2: --");
-        winnerLabel.setText("");
+        updateUI(DetectionSnapshot.EMPTY);
     }
 
     @Override
@@ -410,7 +1115,7 @@ public class RPSDetectionActivity extends AppCompatActivity {
         if (requestCode == CAMERA_PERMISSION_REQUEST) {
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
                 setupMediaPipe();
-                setupCamera();
+                setupCameraFrameSource();
             } else {
                 Toast.makeText(this, "Camera permission is required", Toast.LENGTH_LONG).show();
                 finish();
@@ -418,17 +1123,138 @@ public class RPSDetectionActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Stops analysis while the screen is not in front, keeping the landmarker, frame buffers
+     * and game state warm so {@link #onResume()} picks up with the next frame.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        paused = true;
+        if (frameSource != null) {
+            frameSource.pause();
+        }
+        if (inferenceScheduler != null) {
+            inferenceScheduler.stop();
+        }
+        roundHandler.removeCallbacks(roundTick);
+        if (roundController != null) {
+            // Throws cannot be captured from the background
+            roundController.cancelRound();
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (!paused) return; // first start, onCreate() set everything up
+        paused = false;
+
+        if (inferenceScheduler != null) {
+            inferenceScheduler.start();
+        }
+        if (motionGate != null) {
+            // The scene has changed while away, the first frame is always inferred
+            motionGate.reset();
+        }
+        if (landmarkerTrimmed) {
+            landmarkerTrimmed = false;
+            setupMediaPipe();
+        }
+        if (frameSource != null) {
+            frameSource.resume();
+        }
+        if (roundController != null) {
+            roundHandler.post(roundTick);
+        }
+    }
+
+    /**
+     * Gives memory back when the system asks while the screen is in the background: the frame
+     * buffers and this screen's reference on the landmarker, which the holder then closes. The
+     * game state stays; resuming loads the model again.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (!paused || level < ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) return;
+
+        frameConverter.trim();
+        synchronized (landmarkerLock) {
+            if (handLandmarker != null) {
+                handLandmarker = null;
+                landmarkerHolder.release(resultListener, lastSubmittedTimestampMs);
+                landmarkerTrimmed = true;
+            }
+        }
+        landmarkerHolder.closeIfIdle();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (backgroundExecutor != null) {
-            backgroundExecutor.shutdown();
+        uiUpdates.release();
+        if (frameSource != null) {
+            frameSource.stop();
         }
-        if (cameraProvider != null) {
-            cameraProvider.unbindAll();
+        if (pipeline != null) {
+            pipeline.stop();
         }
-        if (handLandmarker != null) {
-            handLandmarker.close();
+        synchronized (resultLock) {
+            // Waits for a LIVE_STREAM result being processed, later ones are dropped
+            resultsDetached = true;
+        }
+
+        // Recreated right away with the same intent, the new screen continues this session
+        boolean handedOver = isChangingConfigurations();
+        if (handedOver) {
+            handOverSession(new DetectionSession(engine, frameResult, frameConverter,
+                    motionGate, roiTracker, roundController));
+        }
+        if (skeletonView != null) {
+            skeletonView.release();
+        }
+        synchronized (landmarkerLock) {
+            destroyed = true;
+            if (handLandmarker != null) {
+                // Kept warm by the holder for the next launch
+                handLandmarker = null;
+                landmarkerHolder.release(resultListener, lastSubmittedTimestampMs);
+            }
+        }
+        stopLandmarkRecording();
+        matchHistory.flushAsync();
+        roundHandler.removeCallbacks(roundTick);
+        if (!handedOver) {
+            eventStream.onSessionEnded();
+        }
+    }
+
+    /**
+     * Parks the session for the recreated screen without waiting for this screen's frame
+     * threads on the main thread. A background thread waits for them and then marks the
+     * session ready; the new screen skips its frames until then.
+     */
+    private void handOverSession(DetectionSession session) {
+        DetectionSession.retain(this, session);
+        new Thread(() -> {
+            while (!awaitFrameThreads()) {
+                Log.w(TAG, "Frame threads still busy, the recreated screen keeps waiting");
+            }
+            session.markReady();
+        }, "DetectionHandover").start();
+    }
+
+    /**
+     * Waits for the analyzer and the inference pipeline to finish the frame they are on, after
+     * both were stopped. Returns false if either is still busy after the hand-over timeout.
+     */
+    private boolean awaitFrameThreads() {
+        long deadline = System.nanoTime() + HANDOVER_TIMEOUT_MS * 1_000_000L;
+        if (frameSource != null && !frameSource.awaitStopped(HANDOVER_TIMEOUT_MS)) {
+            return false;
         }
+        long remainingMs = Math.max(0, (deadline - System.nanoTime()) / 1_000_000L);
+        return pipeline == null || pipeline.awaitStopped(Math.max(1, remainingMs));
     }
 }
\ No newline at end of file
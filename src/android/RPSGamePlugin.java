@@ -1,29 +1,168 @@
 package com.outsystems.plugins.rpsgame;
 
 import android.content.Intent;
+import android.util.Log;
+
+import com.outsystems.plugins.rpsgame.engine.GestureStabilizer;
+import com.outsystems.plugins.rpsgame.engine.RoundController;
+
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CallbackContext;
 import org.apache.cordova.PluginResult;
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
 
 public class RPSGamePlugin extends CordovaPlugin {
 
+    private static final String TAG = "RPSGamePlugin";
+    private static final String TRACE_DIRECTORY = "traces";
+
+    @Override
+    protected void pluginInitialize() {
+        // Load the model while the app starts, so the first game opens warm
+        LandmarkerHolder.getInstance().preload(cordova.getActivity(), true, LandmarkerHolder.DEFAULT_NUM_HANDS, null);
+    }
+
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
         if ("showGameScreen".equals(action)) {
-            this.showGameScreen(callbackContext);
+            this.showGameScreen(args.optJSONObject(0), callbackContext);
+            return true;
+        } else if ("preload".equals(action)) {
+            JSONObject options = args.optJSONObject(0);
+            boolean liveStream = options == null || options.optBoolean("liveStream", true);
+            int players = options == null ? LandmarkerHolder.DEFAULT_NUM_HANDS
+                    : options.optInt("players", LandmarkerHolder.DEFAULT_NUM_HANDS);
+            int numHands = RPSDetectionActivity.clampPlayers(players);
+            LandmarkerHolder.getInstance().preload(cordova.getActivity(), liveStream, numHands, (landmarker, error) -> {
+                if (landmarker != null) {
+                    callbackContext.success();
+                } else {
+                    Log.e(TAG, "Preload failed", error);
+                    callbackContext.error("Failed to load hand detection model: " + error.getMessage());
+                }
+            });
+            return true;
+        } else if ("startDetectionStream".equals(action)) {
+            JSONObject options = args.optJSONObject(0);
+            int maxBatchesPerSecond = DetectionEventStream.DEFAULT_MAX_BATCHES_PER_SECOND;
+            int batchDelayMs = DetectionEventStream.DEFAULT_BATCH_DELAY_MS;
+            if (options != null) {
+                maxBatchesPerSecond = options.optInt("maxBatchesPerSecond", maxBatchesPerSecond);
+                batchDelayMs = options.optInt("batchDelayMs", batchDelayMs);
+            }
+            DetectionEventStream.getInstance().start(callbackContext, maxBatchesPerSecond, batchDelayMs);
+            return true;
+        } else if ("stopDetectionStream".equals(action)) {
+            DetectionEventStream.getInstance().stop();
+            callbackContext.success();
+            return true;
+        } else if ("getPerformanceStats".equals(action)) {
+            callbackContext.success(PerformanceStats.getInstance().toJson());
+            return true;
+        } else if ("resetPerformanceStats".equals(action)) {
+            PerformanceStats.getInstance().reset();
+            callbackContext.success();
+            return true;
+        } else if ("getMatchStats".equals(action)) {
+            JSONObject options = args.optJSONObject(0);
+            int recent = options != null ? options.optInt("recent", 0) : 0;
+            MatchHistory history = MatchHistory.getInstance();
+            history.open(cordova.getActivity());
+            // Waits for the history writer, keep it off the WebView thread
+            cordova.getThreadPool().execute(() -> {
+                try {
+                    callbackContext.success(history.queryStats(recent));
+                } catch (JSONException e) {
+                    Log.e(TAG, "Match stats failed", e);
+                    callbackContext.error("Failed to read match history: " + e.getMessage());
+                }
+            });
+            return true;
+        } else if ("setFrameTrace".equals(action)) {
+            JSONObject options = args.optJSONObject(0);
+            if (options != null && options.optBoolean("enabled", false)) {
+                FrameTrace.getInstance().enable(options.optInt("capacity", FrameTrace.DEFAULT_CAPACITY));
+            } else {
+                FrameTrace.getInstance().disable();
+            }
+            callbackContext.success();
+            return true;
+        } else if ("dumpFrameTrace".equals(action)) {
+            File file = new File(new File(cordova.getActivity().getCacheDir(), TRACE_DIRECTORY),
+                    "frame-trace-" + System.currentTimeMillis() + ".json");
+            cordova.getThreadPool().execute(() -> {
+                try {
+                    callbackContext.success(FrameTrace.getInstance().dump(file));
+                } catch (IOException | JSONException e) {
+                    Log.e(TAG, "Frame trace dump failed", e);
+                    callbackContext.error("Failed to write frame trace: " + e.getMessage());
+                }
+            });
             return true;
         }
         return false;
     }
 
-    private void showGameScreen(CallbackContext callbackContext) {
+    @Override
+    public void onReset() {
+        // The page that registered the stream is gone
+        DetectionEventStream.getInstance().stop();
+    }
+
+    @Override
+    public void onDestroy() {
+        DetectionEventStream.getInstance().stop();
+        MatchHistory.getInstance().flushAsync();
+    }
+
+    private void showGameScreen(JSONObject options, CallbackContext callbackContext) {
         cordova.getActivity().runOnUiThread(new Runnable() {
             @Override
             public void run() {
                 try {
                     Intent intent = new Intent(cordova.getActivity(), RPSDetectionActivity.class);
+                    if (options != null) {
+                        intent.putExtra(RPSDetectionActivity.EXTRA_LIVE_STREAM, options.optBoolean("liveStream", true));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_PLAYERS,
+                                options.optInt("players", LandmarkerHolder.DEFAULT_NUM_HANDS));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_STABILIZER_WINDOW,
+                                options.optInt("stabilizerWindow", GestureStabilizer.DEFAULT_WINDOW_SIZE));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_STABILIZER_ENTER,
+                                (float) options.optDouble("stabilizerEnterRatio", GestureStabilizer.DEFAULT_ENTER_RATIO));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_STABILIZER_EXIT,
+                                (float) options.optDouble("stabilizerExitRatio", GestureStabilizer.DEFAULT_EXIT_RATIO));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_ADAPTIVE_INFERENCE, options.optBoolean("adaptiveInference", true));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_ROI_TRACKING, options.optBoolean("roiTracking", false));
+                        if (options.has("pipelined")) {
+                            intent.putExtra(RPSDetectionActivity.EXTRA_PIPELINED, options.optBoolean("pipelined", true));
+                        }
+                        intent.putExtra(RPSDetectionActivity.EXTRA_SKELETON_OVERLAY, options.optBoolean("skeletonOverlay", false));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_MOTION_GATE, options.optBoolean("motionGate", true));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_MOTION_THRESHOLD,
+                                (float) options.optDouble("motionThreshold", MotionGate.DEFAULT_THRESHOLD));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_MOTION_MAX_AGE,
+                                options.optLong("motionMaxAgeMs", MotionGate.DEFAULT_MAX_AGE_MS));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_RECORD_LANDMARKS, options.optBoolean("recordLandmarks", false));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_ROUND_MODE, options.optBoolean("roundMode", false));
+                        intent.putExtra(RPSDetectionActivity.EXTRA_BEST_OF,
+                                options.optInt("bestOf", RoundController.DEFAULT_BEST_OF));
+                        JSONObject frameSource = options.optJSONObject("frameSource");
+                        if (frameSource != null) {
+                            intent.putExtra(RPSDetectionActivity.EXTRA_FRAME_SOURCE_PATH, frameSource.optString("path"));
+                            intent.putExtra(RPSDetectionActivity.EXTRA_FRAME_SOURCE_FORMAT,
+                                    frameSource.optString("format", FileFrameSource.FORMAT_RGBA));
+                            intent.putExtra(RPSDetectionActivity.EXTRA_FRAME_SOURCE_WIDTH, frameSource.optInt("width", 0));
+                            intent.putExtra(RPSDetectionActivity.EXTRA_FRAME_SOURCE_HEIGHT, frameSource.optInt("height", 0));
+                            intent.putExtra(RPSDetectionActivity.EXTRA_FRAME_SOURCE_FPS, (float) frameSource.optDouble("fps", 0));
+                            intent.putExtra(RPSDetectionActivity.EXTRA_FRAME_SOURCE_LOOPS, frameSource.optInt("loops", 1));
+                            intent.putExtra(RPSDetectionActivity.EXTRA_FRAME_SOURCE_ROTATION, frameSource.optInt("rotation", 0));
+                        }
+                    }
                     cordova.getActivity().startActivity(intent);
                     
                     PluginResult result = new PluginResult(PluginResult.Status.OK);
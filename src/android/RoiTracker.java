@@ -0,0 +1,276 @@
+package com.outsystems.plugins.rpsgame;
+
+import com.outsystems.plugins.rpsgame.engine.FrameResult;
+
+/**
+ * Crops inference to the region where hands were found in the previous frame.
+ *
+ * The hand landmarker does not accept a region of interest, so the tracker picks a crop that
+ * the frame converter copies out of the camera buffer. The crop is the union of the last known
+ * hand boxes, grown by a motion margin. A full frame is analyzed again every
+ * {@code redetectInterval} frames, whenever the number of hands changes, when no hand is found
+ * inside the crop, when a hand touches its edge or when the landmarker is no longer sure of a
+ * hand. MediaPipe's Java results carry no hand presence or tracking score, so the per-hand
+ * handedness score stands in for it.
+ *
+ * Only for IMAGE mode, where every frame is detected on its own. In LIVE_STREAM mode the
+ * landmarker tracks hands from one frame to the next in image coordinates, and a crop that moves
+ * or changes size breaks that tracking; there is no way to reset it per frame.
+ *
+ * The latency of cropped and full frames, conversion to result, goes to {@link PerformanceStats},
+ * where the share of cropped frames is the tracker's hit rate.
+ *
+ * Regions are normalized (0.0 to 1.0) and expressed in upright image coordinates, the same
+ * space MediaPipe reports landmarks in. {@link #nextRegion} runs on the analyzer thread and
+ * {@link #onResult} on whichever thread delivers results, so the shared state is synchronized.
+ */
+public class RoiTracker {
+
+    public static final int DEFAULT_REDETECT_INTERVAL = 15;
+    public static final float DEFAULT_MOTION_MARGIN = 0.25f; // fraction of the region size, per side
+    // Hands are only reported above the landmarker's 0.7 confidence, this catches them on the way down
+    public static final float DEFAULT_MIN_HAND_SCORE = 0.8f;
+
+    // Below this size the palm detector loses context, above it cropping saves little
+    private static final float MIN_REGION_SIZE = 0.35f;
+    private static final float MAX_REGION_AREA = 0.6f;
+    private static final float EDGE_MARGIN = 0.02f;
+
+    private static final int PENDING_FRAMES = 16;
+
+    private final int redetectInterval;
+    private final float motionMargin;
+    private final float minHandScore;
+
+    // Tracked region and state, guarded by this
+    private final float[] region = new float[4];
+    private boolean tracking = false;
+    private int trackedHands = 0;
+    private int framesSinceFullFrame = 0;
+
+    // Frames submitted but not resolved yet, keyed by timestamp
+    private final long[] pendingTimestamps = new long[PENDING_FRAMES];
+    private final long[] pendingSubmitNanos = new long[PENDING_FRAMES];
+    private final boolean[] pendingCropped = new boolean[PENDING_FRAMES];
+    private final float[] pendingRegions = new float[PENDING_FRAMES * 4];
+    private int pendingHead = 0;
+
+    private final PerformanceStats stats = PerformanceStats.getInstance();
+
+    public RoiTracker() {
+        this(DEFAULT_REDETECT_INTERVAL, DEFAULT_MOTION_MARGIN, DEFAULT_MIN_HAND_SCORE);
+    }
+
+    /**
+     * @param minHandScore score every tracked hand needs for the next frame to be cropped
+     */
+    public RoiTracker(int redetectInterval, float motionMargin, float minHandScore) {
+        this.redetectInterval = Math.max(1, redetectInterval);
+        this.motionMargin = Math.max(0f, motionMargin);
+        this.minHandScore = minHandScore;
+        for (int i = 0; i < PENDING_FRAMES; i++) {
+            pendingTimestamps[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Decides how the next frame is analyzed.
+     *
+     * @param regionOut receives the upright crop region when cropping
+     * @return true if the frame should be cropped to {@code regionOut}
+     */
+    public synchronized boolean nextRegion(float[] regionOut) {
+        boolean crop = tracking && framesSinceFullFrame < redetectInterval;
+        if (crop) {
+            framesSinceFullFrame++;
+            System.arraycopy(region, 0, regionOut, 0, 4);
+        } else {
+            framesSinceFullFrame = 0;
+            setFullFrame(regionOut);
+        }
+        return crop;
+    }
+
+    /**
+     * Remembers the region a frame was submitted with, until its result comes back.
+     *
+     * @param region the upright region actually cropped, after pixel alignment
+     */
+    public synchronized void onSubmitted(long timestampMs, long submitNanos, boolean cropped, float[] region) {
+        int slot = pendingHead;
+        pendingHead = (pendingHead + 1) % PENDING_FRAMES;
+        pendingTimestamps[slot] = timestampMs;
+        pendingSubmitNanos[slot] = submitNanos;
+        pendingCropped[slot] = cropped;
+        System.arraycopy(region, 0, pendingRegions, slot * 4, 4);
+    }
+
+    /**
+     * Looks up the region a finished frame was analyzed with.
+     *
+     * @param regionOut receives the upright region the landmarks are relative to
+     * @return true if the frame was cropped, false for a full frame or an unknown timestamp
+     */
+    public synchronized boolean resolveFrame(long timestampMs, long resultNanos, float[] regionOut) {
+        for (int i = 0; i < PENDING_FRAMES; i++) {
+            if (pendingTimestamps[i] != timestampMs) continue;
+
+            pendingTimestamps[i] = Long.MIN_VALUE;
+            stats.record(pendingCropped[i] ? PerformanceStats.Stage.ROI_CROPPED : PerformanceStats.Stage.ROI_FULL,
+                    resultNanos - pendingSubmitNanos[i]);
+
+            System.arraycopy(pendingRegions, i * 4, regionOut, 0, 4);
+            return pendingCropped[i];
+        }
+        setFullFrame(regionOut);
+        return false;
+    }
+
+    /**
+     * Updates the tracked region from the hands found in a frame.
+     *
+     * @param frame    engine result with upright, full-frame hand boxes per player
+     * @param handScores score of each input hand, as indexed by {@link FrameResult#playerHand}
+     * @param cropped  whether the frame was analyzed cropped
+     * @param frameRegion the region the frame was analyzed with
+     */
+    public synchronized void onResult(FrameResult frame, float[] handScores, boolean cropped, float[] frameRegion) {
+        int handCount = frame.handCount;
+        float[] boxes = frame.boxes;
+        if (handCount == 0 || (tracking && handCount != trackedHands)) {
+            // Lost a hand or gained one, look at the whole frame next time
+            tracking = false;
+            trackedHands = handCount;
+            return;
+        }
+
+        float left = 1f, top = 1f, right = 0f, bottom = 0f;
+        boolean touchesEdge = false;
+        boolean uncertain = false;
+        for (int p = 0; p < frame.maxPlayers; p++) {
+            if (frame.playerHand[p] < 0) continue;
+            uncertain |= handScores[frame.playerHand[p]] < minHandScore;
+            int b = p * 4;
+            left = Math.min(left, boxes[b]);
+            top = Math.min(top, boxes[b + 1]);
+            right = Math.max(right, boxes[b + 2]);
+            bottom = Math.max(bottom, boxes[b + 3]);
+
+            if (cropped) {
+                touchesEdge |= boxes[b] <= frameRegion[0] + EDGE_MARGIN && frameRegion[0] > 0f;
+                touchesEdge |= boxes[b + 1] <= frameRegion[1] + EDGE_MARGIN && frameRegion[1] > 0f;
+                touchesEdge |= boxes[b + 2] >= frameRegion[2] - EDGE_MARGIN && frameRegion[2] < 1f;
+                touchesEdge |= boxes[b + 3] >= frameRegion[3] - EDGE_MARGIN && frameRegion[3] < 1f;
+            }
+        }
+
+        trackedHands = handCount;
+        if (touchesEdge || uncertain) {
+            // A hand is leaving the crop and may be cut off, or is about to be lost
+            tracking = false;
+            return;
+        }
+
+        float marginX = (right - left) * motionMargin;
+        float marginY = (bottom - top) * motionMargin;
+        left -= marginX;
+        right += marginX;
+        top -= marginY;
+        bottom += marginY;
+
+        // Keep the region large enough for the palm detector
+        float width = right - left;
+        if (width < MIN_REGION_SIZE) {
+            left -= (MIN_REGION_SIZE - width) / 2;
+            right = left + MIN_REGION_SIZE;
+        }
+        float height = bottom - top;
+        if (height < MIN_REGION_SIZE) {
+            top -= (MIN_REGION_SIZE - height) / 2;
+            bottom = top + MIN_REGION_SIZE;
+        }
+
+        region[0] = Math.max(0f, left);
+        region[1] = Math.max(0f, top);
+        region[2] = Math.min(1f, right);
+        region[3] = Math.min(1f, bottom);
+
+        tracking = (region[2] - region[0]) * (region[3] - region[1]) <= MAX_REGION_AREA;
+    }
+
+    public synchronized void reset() {
+        tracking = false;
+        trackedHands = 0;
+        framesSinceFullFrame = 0;
+    }
+
+    /**
+     * Maps an upright region to the unrotated camera buffer. {@code rotationDegrees} is the
+     * clockwise rotation that makes the buffer upright, as reported by CameraX.
+     */
+    public static void toBufferRegion(float[] upright, int rotationDegrees, float[] out) {
+        float l = upright[0], t = upright[1], r = upright[2], b = upright[3];
+        switch (((rotationDegrees % 360) + 360) % 360) {
+            case 90:
+                // upright (u, v) = buffer (1 - y, x)
+                out[0] = t;
+                out[1] = 1f - r;
+                out[2] = b;
+                out[3] = 1f - l;
+                break;
+            case 180:
+                out[0] = 1f - r;
+                out[1] = 1f - b;
+                out[2] = 1f - l;
+                out[3] = 1f - t;
+                break;
+            case 270:
+                // upright (u, v) = buffer (y, 1 - x)
+                out[0] = 1f - b;
+                out[1] = l;
+                out[2] = 1f - t;
+                out[3] = r;
+                break;
+            default:
+                System.arraycopy(upright, 0, out, 0, 4);
+                break;
+        }
+    }
+
+    /**
+     * Inverse of {@link #toBufferRegion}: maps a region of the camera buffer to upright coordinates.
+     */
+    public static void toUprightRegion(float[] buffer, int rotationDegrees, float[] out) {
+        float l = buffer[0], t = buffer[1], r = buffer[2], b = buffer[3];
+        switch (((rotationDegrees % 360) + 360) % 360) {
+            case 90:
+                out[0] = 1f - b;
+                out[1] = l;
+                out[2] = 1f - t;
+                out[3] = r;
+                break;
+            case 180:
+                out[0] = 1f - r;
+                out[1] = 1f - b;
+                out[2] = 1f - l;
+                out[3] = 1f - t;
+                break;
+            case 270:
+                out[0] = t;
+                out[1] = 1f - r;
+                out[2] = b;
+                out[3] = 1f - l;
+                break;
+            default:
+                System.arraycopy(buffer, 0, out, 0, 4);
+                break;
+        }
+    }
+
+    private static void setFullFrame(float[] out) {
+        out[0] = 0f;
+        out[1] = 0f;
+        out[2] = 1f;
+        out[3] = 1f;
+    }
+}
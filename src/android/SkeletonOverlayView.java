@@ -0,0 +1,232 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.view.Choreographer;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import com.outsystems.plugins.rpsgame.engine.GestureClassifier;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+
+/**
+ * Draws the 21 landmarks and the bones between them of every tracked hand, on a transparent
+ * surface of its own with a dedicated render thread, so the skeleton never competes with
+ * layout, animations or label updates on the main thread.
+ *
+ * {@link #submit} copies the hands from the thread that processes results into a pending slot
+ * and asks the render thread for a frame; the render thread swaps the slot in and draws at the
+ * next vsync, so results that arrive faster than the display are coalesced. Each hand is one
+ * {@code drawLines} and one {@code drawPoints} call from preallocated arrays, nothing is
+ * allocated per frame.
+ */
+public class SkeletonOverlayView extends SurfaceView implements SurfaceHolder.Callback {
+
+    private static final int LANDMARKS = GestureClassifier.LANDMARKS_PER_HAND;
+    private static final int FLOATS_PER_HAND = LANDMARKS * 2; // x, y
+
+    // MediaPipe's hand connections, as landmark index pairs
+    private static final int[] BONES = {
+            0, 1, 1, 2, 2, 3, 3, 4,         // thumb
+            0, 5, 5, 6, 6, 7, 7, 8,         // index
+            9, 10, 10, 11, 11, 12,          // middle
+            13, 14, 14, 15, 15, 16,         // ring
+            0, 17, 17, 18, 18, 19, 19, 20,  // pinky
+            5, 9, 9, 13, 13, 17             // palm
+    };
+
+    private final int maxPlayers;
+
+    // Latest hands from the result thread, guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private float[] pendingLandmarks;
+    private int[] pendingColors;
+    private int pendingMask = 0;
+    private boolean pendingChanged = false;
+    private boolean frameRequested = false;
+
+    // Render thread only
+    private float[] frontLandmarks;
+    private int[] frontColors;
+    private int frontMask = 0;
+    private final float[] lines = new float[BONES.length * 2];
+    private final float[] points = new float[FLOATS_PER_HAND];
+    private final Paint bonePaint = new Paint();
+    private final Paint jointPaint = new Paint();
+    private Choreographer choreographer;
+
+    // The surface can go away on the main thread while the render thread draws
+    private final Object surfaceLock = new Object();
+    private boolean surfaceReady = false;
+    private int surfaceWidth;
+    private int surfaceHeight;
+
+    private final HandlerThread renderThread;
+    private final Handler renderHandler;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> drawFrame();
+    private final Runnable requestFrame = () -> choreographer.postFrameCallback(frameCallback);
+
+    public SkeletonOverlayView(Context context, int maxPlayers) {
+        super(context);
+        this.maxPlayers = maxPlayers;
+        pendingLandmarks = new float[maxPlayers * FLOATS_PER_HAND];
+        frontLandmarks = new float[maxPlayers * FLOATS_PER_HAND];
+        pendingColors = new int[maxPlayers];
+        frontColors = new int[maxPlayers];
+
+        bonePaint.setStyle(Paint.Style.STROKE);
+        bonePaint.setStrokeWidth(5f);
+        bonePaint.setAntiAlias(true);
+        jointPaint.setColor(Color.WHITE);
+        jointPaint.setStrokeWidth(12f);
+        jointPaint.setStrokeCap(Paint.Cap.ROUND);
+        jointPaint.setAntiAlias(true);
+
+        // Above the camera preview's surface, still below the window with the labels
+        setZOrderMediaOverlay(true);
+        getHolder().setFormat(PixelFormat.TRANSLUCENT);
+        getHolder().addCallback(this);
+
+        renderThread = new HandlerThread("SkeletonRender", Process.THREAD_PRIORITY_DISPLAY);
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+        // The render thread's choreographer paces frames to its vsync
+        renderHandler.post(() -> choreographer = Choreographer.getInstance());
+    }
+
+    /**
+     * Hands over the hands of a frame. Called from the thread that processes results.
+     *
+     * @param landmarks  landmark buffer laid out as in {@link GestureClassifier}, full frame
+     *                   normalized coordinates
+     * @param playerHand input hand of each player, -1 if the player is not in view
+     * @param gestures   each player's gesture, for the colour
+     */
+    public void submit(float[] landmarks, int[] playerHand, RPSGesture[] gestures, int players) {
+        synchronized (pendingLock) {
+            int mask = 0;
+            for (int p = 0; p < players && p < maxPlayers; p++) {
+                int hand = playerHand[p];
+                if (hand < 0) continue;
+
+                int source = hand * GestureClassifier.FLOATS_PER_HAND;
+                int target = p * FLOATS_PER_HAND;
+                for (int i = 0; i < LANDMARKS; i++, source += GestureClassifier.FLOATS_PER_LANDMARK) {
+                    pendingLandmarks[target++] = landmarks[source];
+                    pendingLandmarks[target++] = landmarks[source + 1];
+                }
+                pendingColors[p] = gestures[p].getColor();
+                mask |= 1 << p;
+            }
+            // Nothing to redraw while no hand is in view
+            if (mask == 0 && pendingMask == 0 && !pendingChanged) return;
+
+            pendingMask = mask;
+            pendingChanged = true;
+            if (frameRequested) return;
+            frameRequested = true;
+        }
+        renderHandler.post(requestFrame);
+    }
+
+    /**
+     * Stops the render thread. The view cannot be used afterwards.
+     */
+    public void release() {
+        getHolder().removeCallback(this);
+        renderHandler.removeCallbacksAndMessages(null);
+        renderThread.quitSafely();
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        synchronized (surfaceLock) {
+            surfaceReady = true;
+            surfaceWidth = width;
+            surfaceHeight = height;
+        }
+        // Redraw what was shown on the new surface
+        synchronized (pendingLock) {
+            pendingChanged = true;
+            if (frameRequested) return;
+            frameRequested = true;
+        }
+        renderHandler.post(requestFrame);
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // Waits for a draw in progress, the surface must not be used once this returns
+        synchronized (surfaceLock) {
+            surfaceReady = false;
+        }
+    }
+
+    private void drawFrame() {
+        synchronized (pendingLock) {
+            frameRequested = false;
+            if (!pendingChanged) return;
+            pendingChanged = false;
+
+            float[] landmarks = frontLandmarks;
+            frontLandmarks = pendingLandmarks;
+            pendingLandmarks = landmarks;
+            int[] colors = frontColors;
+            frontColors = pendingColors;
+            pendingColors = colors;
+            frontMask = pendingMask;
+        }
+
+        synchronized (surfaceLock) {
+            if (!surfaceReady) return;
+
+            SurfaceHolder holder = getHolder();
+            Canvas canvas = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                    ? holder.lockHardwareCanvas() : holder.lockCanvas();
+            if (canvas == null) return;
+            try {
+                canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                for (int p = 0; p < maxPlayers; p++) {
+                    if ((frontMask & (1 << p)) != 0) {
+                        drawHand(canvas, p);
+                    }
+                }
+            } finally {
+                holder.unlockCanvasAndPost(canvas);
+            }
+        }
+    }
+
+    private void drawHand(Canvas canvas, int player) {
+        float width = surfaceWidth;
+        float height = surfaceHeight;
+        int base = player * FLOATS_PER_HAND;
+
+        // Mirror X to match the front camera preview, like the box overlay
+        for (int i = 0; i < FLOATS_PER_HAND; i += 2) {
+            points[i] = (1f - frontLandmarks[base + i]) * width;
+            points[i + 1] = frontLandmarks[base + i + 1] * height;
+        }
+        for (int b = 0, l = 0; b < BONES.length; b++) {
+            int joint = BONES[b] * 2;
+            lines[l++] = points[joint];
+            lines[l++] = points[joint + 1];
+        }
+
+        bonePaint.setColor(frontColors[player]);
+        canvas.drawLines(lines, 0, lines.length, bonePaint);
+        canvas.drawPoints(points, 0, points.length, jointPaint);
+    }
+}
@@ -0,0 +1,67 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands the latest value from a worker thread to the main thread at most once per display frame.
+ *
+ * Workers publish into a single atomic slot, overwriting whatever the main thread has not picked
+ * up yet. Only the first publish after a drain schedules a Choreographer callback, so the main
+ * thread never sees more than one pending message no matter how fast frames are produced.
+ */
+public class UiUpdateCoalescer<T> implements Choreographer.FrameCallback {
+
+    public interface Consumer<T> {
+        void accept(T value);
+    }
+
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(this);
+    private final Consumer<T> consumer;
+    private volatile boolean released = false;
+
+    public UiUpdateCoalescer(Consumer<T> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Publishes a value from any thread.
+     *
+     * @return true if the value replaced one the main thread had not picked up yet
+     */
+    public boolean publish(T value) {
+        boolean superseded = latest.getAndSet(value) != null;
+        if (!released && scheduled.compareAndSet(false, true)) {
+            // Choreographer is per-looper, the callback has to be registered from the main thread
+            mainHandler.post(scheduleFrame);
+        }
+        return superseded;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Clear the flag first, a value published from here on schedules the next frame
+        scheduled.set(false);
+        T value = latest.getAndSet(null);
+        if (value != null && !released) {
+            consumer.accept(value);
+        }
+    }
+
+    /**
+     * Stops delivering values. Must be called on the main thread.
+     */
+    public void release() {
+        released = true;
+        mainHandler.removeCallbacks(scheduleFrame);
+        Choreographer.getInstance().removeFrameCallback(this);
+        latest.set(null);
+    }
+}
@@ -0,0 +1,48 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Output of {@link GestureEngine#process}, owned by the caller and reused across frames.
+ *
+ * All arrays are indexed by player. A player keeps their index for as long as their hand is
+ * tracked, even when hands cross; players who enter together are numbered left to right as seen
+ * on the mirrored preview. With some players out of view the indices in use can have gaps, so
+ * check {@link #playerHand} rather than counting up to {@link #handCount}.
+ */
+public final class FrameResult {
+
+    public final int maxPlayers;
+
+    public int handCount;                     // players with a hand in the frame, at most maxPlayers
+    public final int[] playerHand;            // index of the player's hand in the input, -1 if absent
+    public final RPSGesture[] gestures;       // gesture seen in this frame
+    public final RPSGesture[] stableGestures; // gesture after temporal smoothing
+    public final float[] confidences;         // classifier confidence, 0 to 1
+    public final float[] boxes;               // left, top, right, bottom per player, normalized
+    public final int[] extendedFingers;       // GestureClassifier finger bits per player
+    public Outcome outcome = Outcome.NONE;    // players 1 and 2, decided from the stable gestures
+    public final RoundResolver.Result resolution = new RoundResolver.Result(); // all players
+
+    public FrameResult(int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+        this.playerHand = new int[maxPlayers];
+        this.gestures = new RPSGesture[maxPlayers];
+        this.stableGestures = new RPSGesture[maxPlayers];
+        this.confidences = new float[maxPlayers];
+        this.boxes = new float[maxPlayers * 4];
+        this.extendedFingers = new int[maxPlayers];
+        clear();
+    }
+
+    public void clear() {
+        handCount = 0;
+        for (int p = 0; p < maxPlayers; p++) {
+            playerHand[p] = -1;
+            gestures[p] = RPSGesture.UNKNOWN;
+            stableGestures[p] = RPSGesture.UNKNOWN;
+            confidences[p] = 0f;
+            extendedFingers[p] = 0;
+        }
+        outcome = Outcome.NONE;
+        resolution.clear();
+    }
+}
@@ -0,0 +1,112 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Classifies a hand into an {@link RPSGesture} straight from a flat landmark buffer.
+ *
+ * Each hand takes {@link #FLOATS_PER_HAND} floats: 21 landmarks stored as x, y, z in
+ * MediaPipe order. The gesture and its confidence come from {@link GestureModel}; the bounding
+ * box, centroid and finger states are computed in the same call, which writes into a
+ * caller-owned {@link Result}, so classifying a frame allocates nothing.
+ */
+public final class GestureClassifier {
+
+    public static final int LANDMARKS_PER_HAND = 21;
+    public static final int FLOATS_PER_LANDMARK = 3;
+    public static final int FLOATS_PER_HAND = LANDMARKS_PER_HAND * FLOATS_PER_LANDMARK;
+
+    // Finger bits in Result.extendedFingers
+    public static final int THUMB = 1;
+    public static final int INDEX = 1 << 1;
+    public static final int MIDDLE = 1 << 2;
+    public static final int RING = 1 << 3;
+    public static final int PINKY = 1 << 4;
+
+    // A finger counts as extended when its joint angle is at least 160 degrees
+    private static final float STRAIGHT_BEND = (float) Math.cos(Math.toRadians(160.0));
+
+    private static final float BOX_PADDING = 0.05f; // 5% padding in normalized space
+
+    /**
+     * Output holder, reused by the caller across frames.
+     */
+    public static final class Result {
+        public RPSGesture gesture = RPSGesture.UNKNOWN;
+        public float confidence;   // 0 to 1, see GestureModel
+        public int extendedFingers;
+        public final float[] features = new float[GestureModel.FEATURE_COUNT];
+        final float[] classDistances = new float[3];
+
+        // Padded bounding box in normalized coordinates (0.0 to 1.0)
+        public float left;
+        public float top;
+        public float right;
+        public float bottom;
+
+        // Mean landmark position, steadier than the box center when fingers open and close
+        public float centerX;
+        public float centerY;
+    }
+
+    private GestureClassifier() {
+    }
+
+    /**
+     * Classifies hand {@code hand} of the buffer and stores gesture, confidence, features,
+     * finger states and bounding box in {@code out}.
+     */
+    public static void classify(float[] landmarks, int hand, Result out) {
+        int base = hand * FLOATS_PER_HAND;
+
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = Float.MIN_VALUE, maxY = Float.MIN_VALUE;
+        float sumX = 0f, sumY = 0f;
+        for (int i = base, end = base + FLOATS_PER_HAND; i < end; i += FLOATS_PER_LANDMARK) {
+            float x = landmarks[i];
+            float y = landmarks[i + 1];
+            sumX += x;
+            sumY += y;
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+
+        out.left = Math.max(0.0f, minX - BOX_PADDING);
+        out.top = Math.max(0.0f, minY - BOX_PADDING);
+        out.right = Math.min(1.0f, maxX + BOX_PADDING);
+        out.bottom = Math.min(1.0f, maxY + BOX_PADDING);
+        out.centerX = sumX / LANDMARKS_PER_HAND;
+        out.centerY = sumY / LANDMARKS_PER_HAND;
+
+        if (!GestureModel.extractFeatures(landmarks, hand, out.features)) {
+            out.extendedFingers = 0;
+            out.gesture = RPSGesture.UNKNOWN;
+            out.confidence = 0f;
+            return;
+        }
+
+        int extended = 0;
+        for (int finger = 0; finger < 5; finger++) {
+            if (out.features[GestureModel.BEND + finger] <= STRAIGHT_BEND) {
+                extended |= 1 << finger;
+            }
+        }
+        out.extendedFingers = extended;
+        GestureModel.predict(out.features, out);
+    }
+
+    /**
+     * Maps a set of extended fingers to a gesture with fixed rules. Only a rough reading,
+     * {@link #classify} uses the model.
+     */
+    public static RPSGesture gestureFor(int extendedFingers) {
+        int nonThumb = extendedFingers & (INDEX | MIDDLE | RING | PINKY);
+        if (nonThumb == (INDEX | MIDDLE)) return RPSGesture.SCISSORS;
+
+        int extendedCount = Integer.bitCount(extendedFingers);
+        if (extendedCount >= 4) return RPSGesture.PAPER;
+        if (extendedCount <= 1) return RPSGesture.ROCK;
+
+        return RPSGesture.UNKNOWN;
+    }
+}
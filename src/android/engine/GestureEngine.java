@@ -0,0 +1,130 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Game logic of the detection screen, free of Android and MediaPipe types.
+ *
+ * Takes the landmarks of one frame as a flat buffer (see {@link GestureClassifier}), classifies
+ * every hand, keeps each hand on its player with a {@link PlayerTracker}, smooths each
+ * player's gesture over time and decides the round. Nothing is allocated per frame, so the
+ * engine can be profiled, fuzzed and replayed on a plain JVM.
+ *
+ * An engine instance is not thread safe; feed it from a single thread.
+ */
+public final class GestureEngine {
+
+    public static final int DEFAULT_MAX_PLAYERS = 2;
+
+    private final int maxPlayers;
+    private final GestureStabilizer[] stabilizers;
+    private final PlayerTracker tracker;
+
+    // Per-hand scratch space, indexed by input hand
+    private final GestureClassifier.Result classification = new GestureClassifier.Result();
+    private final RPSGesture[] handGestures;
+    private final float[] handConfidences;
+    private final int[] handFingers;
+    private final float[] handBoxes;
+    private final float[] handCenters;
+    private final int[] handSlots;
+
+    public GestureEngine() {
+        this(DEFAULT_MAX_PLAYERS, GestureStabilizer.DEFAULT_WINDOW_SIZE,
+                GestureStabilizer.DEFAULT_ENTER_RATIO, GestureStabilizer.DEFAULT_EXIT_RATIO);
+    }
+
+    public GestureEngine(int maxPlayers, int stabilizerWindow, float enterRatio, float exitRatio) {
+        if (maxPlayers < 1) {
+            throw new IllegalArgumentException("maxPlayers must be at least 1");
+        }
+        this.maxPlayers = maxPlayers;
+        this.stabilizers = new GestureStabilizer[maxPlayers];
+        for (int p = 0; p < maxPlayers; p++) {
+            stabilizers[p] = new GestureStabilizer(stabilizerWindow, enterRatio, exitRatio);
+        }
+        this.handGestures = new RPSGesture[maxPlayers];
+        this.handConfidences = new float[maxPlayers];
+        this.handFingers = new int[maxPlayers];
+        this.handBoxes = new float[maxPlayers * 4];
+        this.handCenters = new float[maxPlayers * 2];
+        this.handSlots = new int[maxPlayers];
+        this.tracker = new PlayerTracker(maxPlayers);
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    /**
+     * Processes one frame.
+     *
+     * @param landmarks  {@link GestureClassifier#FLOATS_PER_HAND} floats per hand, full-frame normalized
+     * @param handCount  number of hands in the buffer, hands beyond the player count are ignored
+     * @param out        receives the per-player result
+     */
+    public void process(float[] landmarks, int handCount, FrameResult out) {
+        int hands = Math.min(handCount, maxPlayers);
+
+        for (int h = 0; h < hands; h++) {
+            GestureClassifier.classify(landmarks, h, classification);
+            handGestures[h] = classification.gesture;
+            handConfidences[h] = classification.confidence;
+            handFingers[h] = classification.extendedFingers;
+            handBoxes[h * 4] = classification.left;
+            handBoxes[h * 4 + 1] = classification.top;
+            handBoxes[h * 4 + 2] = classification.right;
+            handBoxes[h * 4 + 3] = classification.bottom;
+            handCenters[h * 2] = classification.centerX;
+            handCenters[h * 2 + 1] = classification.centerY;
+        }
+
+        tracker.update(handBoxes, handCenters, hands, handSlots);
+
+        out.handCount = hands;
+        for (int p = 0; p < maxPlayers; p++) {
+            out.playerHand[p] = -1;
+        }
+        for (int h = 0; h < hands; h++) {
+            out.playerHand[handSlots[h]] = h;
+        }
+
+        for (int p = 0; p < maxPlayers; p++) {
+            if (tracker.isNewTrack(p)) {
+                // Someone else took the slot, the previous player's history does not apply
+                stabilizers[p].reset();
+            }
+            int h = out.playerHand[p];
+            if (h >= 0) {
+                out.gestures[p] = handGestures[h];
+                out.extendedFingers[p] = handFingers[h];
+                out.confidences[p] = handConfidences[h];
+                System.arraycopy(handBoxes, h * 4, out.boxes, p * 4, 4);
+                stabilizers[p].update(out.gestures[p], out.confidences[p]);
+            } else {
+                out.gestures[p] = RPSGesture.UNKNOWN;
+                out.extendedFingers[p] = 0;
+                out.confidences[p] = 0f;
+                // Hand not visible, let its history age out
+                stabilizers[p].update(RPSGesture.UNKNOWN, 0f);
+            }
+            out.stableGestures[p] = stabilizers[p].getStableGesture();
+        }
+
+        out.outcome = maxPlayers >= 2 && out.playerHand[0] >= 0 && out.playerHand[1] >= 0
+                ? Outcome.of(out.stableGestures[0], out.stableGestures[1])
+                : Outcome.NONE;
+
+        // A group round is only decided once every player is in view
+        if (hands == maxPlayers) {
+            RoundResolver.resolve(out.stableGestures, hands, out.resolution);
+        } else {
+            out.resolution.clear();
+        }
+    }
+
+    public void reset() {
+        for (GestureStabilizer stabilizer : stabilizers) {
+            stabilizer.reset();
+        }
+        tracker.reset();
+    }
+}
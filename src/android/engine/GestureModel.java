@@ -0,0 +1,185 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Embedded gesture model: a compact feature vector per hand and a nearest-centroid table.
+ *
+ * The features use all three landmark coordinates, so they hold up when the hand is tilted
+ * towards or away from the camera:
+ * <ul>
+ *   <li>bend of each finger, the cosine of the 3D angle at its middle joint between the base
+ *   joint and the tip (-1 straight, towards 1 curled)</li>
+ *   <li>distance of each fingertip from the wrist (the thumb's from the index knuckle),
+ *   divided by the palm length so the hand's size and distance do not matter</li>
+ *   <li>spread between the index and middle fingertips, which separates scissors from paper</li>
+ *   <li>palm orientation, how squarely the palm faces the camera</li>
+ * </ul>
+ *
+ * Each gesture is a centroid with a per-feature scale, stored as primitive arrays. The
+ * confidence is the gesture's share of the likelihood of all gestures plus a background term,
+ * so it is low both between two gestures and far from all of them; below
+ * {@link #MIN_CONFIDENCE} the hand is reported as UNKNOWN.
+ *
+ * The centroids, scales and background term are set by hand from the geometry of the
+ * gestures, not fitted to recorded hands. The confidence therefore ranks hands and gates
+ * UNKNOWN, but it is not a calibrated probability.
+ */
+public final class GestureModel {
+
+    // Feature vector layout
+    public static final int BEND = 0;        // 5 values, thumb first
+    public static final int TIP_DISTANCE = 5; // 5 values, thumb first
+    public static final int SPREAD = 10;
+    public static final int PALM_FACING = 11;
+    public static final int FEATURE_COUNT = 12;
+
+    public static final float MIN_CONFIDENCE = 0.5f;
+
+    private static final RPSGesture[] CLASSES = {RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.SCISSORS};
+
+    // Centroids, FEATURE_COUNT values per class in CLASSES order
+    private static final float[] CENTROIDS = {
+            // bend: thumb, index, middle, ring, pinky | tip distance: same order | spread | facing
+            -0.3f, 0.4f, 0.4f, 0.4f, 0.4f, /**/ 0.45f, 0.9f, 0.85f, 0.85f, 0.8f, /**/ 0.15f, /**/ 0f,   // ROCK
+            -0.9f, -0.95f, -0.95f, -0.95f, -0.95f, /**/ 1.0f, 1.75f, 1.85f, 1.75f, 1.5f, /**/ 0.35f, /**/ 0f, // PAPER
+            -0.3f, -0.95f, -0.95f, 0.4f, 0.4f, /**/ 0.6f, 1.75f, 1.85f, 0.85f, 0.8f, /**/ 0.6f, /**/ 0f    // SCISSORS
+    };
+
+    // 1 / expected spread of each feature; the thumb varies most between people and
+    // orientation does not tell the gestures apart, it is kept in the vector for recordings
+    private static final float[] INV_SCALE = {
+            1 / 0.7f, 1 / 0.35f, 1 / 0.35f, 1 / 0.35f, 1 / 0.35f,
+            1 / 0.5f, 1 / 0.3f, 1 / 0.3f, 1 / 0.3f, 1 / 0.3f,
+            1 / 0.15f,
+            0f
+    };
+
+    // Squared distance where a hand is as likely to be none of the gestures. Set by hand; it
+    // would be the 99th percentile over the 11 weighted features if the scales above were
+    // their true standard deviations
+    private static final float BACKGROUND_DISTANCE_SQUARED = 25f;
+
+    // Landmark indices
+    private static final int WRIST = 0;
+    private static final int INDEX_MCP = 5;
+    private static final int MIDDLE_MCP = 9;
+    private static final int PINKY_MCP = 17;
+
+    // Base joint, middle joint and tip of each finger, thumb first
+    private static final int[] FINGER_JOINTS = {
+            2, 3, 4,
+            5, 6, 8,
+            9, 10, 12,
+            13, 14, 16,
+            17, 18, 20
+    };
+
+    private GestureModel() {
+    }
+
+    /**
+     * Writes the {@link #FEATURE_COUNT} features of hand {@code hand} into {@code features}.
+     *
+     * @return false if the hand is degenerate (zero palm length) and the features are zeros
+     */
+    public static boolean extractFeatures(float[] landmarks, int hand, float[] features) {
+        int base = hand * GestureClassifier.FLOATS_PER_HAND;
+        float palm = distance(landmarks, base, WRIST, MIDDLE_MCP);
+        if (palm <= 0f) {
+            for (int i = 0; i < FEATURE_COUNT; i++) {
+                features[i] = 0f;
+            }
+            return false;
+        }
+
+        for (int finger = 0; finger < 5; finger++) {
+            int j = finger * 3;
+            features[BEND + finger] = bend(landmarks, base, FINGER_JOINTS[j], FINGER_JOINTS[j + 1],
+                    FINGER_JOINTS[j + 2]);
+            int tip = FINGER_JOINTS[j + 2];
+            features[TIP_DISTANCE + finger] = distance(landmarks, base, finger == 0 ? INDEX_MCP : WRIST, tip) / palm;
+        }
+        features[SPREAD] = distance(landmarks, base, 8, 12) / palm;
+        features[PALM_FACING] = palmFacing(landmarks, base);
+        return true;
+    }
+
+    /**
+     * Classifies a feature vector, setting {@code out.gesture} and {@code out.confidence}.
+     */
+    public static void predict(float[] features, GestureClassifier.Result out) {
+        float best = Float.MAX_VALUE;
+        int bestClass = 0;
+        float[] distances = out.classDistances;
+        for (int c = 0; c < CLASSES.length; c++) {
+            int offset = c * FEATURE_COUNT;
+            float sum = 0f;
+            for (int i = 0; i < FEATURE_COUNT; i++) {
+                float d = (features[i] - CENTROIDS[offset + i]) * INV_SCALE[i];
+                sum += d * d;
+            }
+            distances[c] = sum;
+            if (sum < best) {
+                best = sum;
+                bestClass = c;
+            }
+        }
+
+        // Likelihoods relative to the best class, which contributes exp(0) = 1
+        double total = Math.exp(-0.5 * (BACKGROUND_DISTANCE_SQUARED - best));
+        for (int c = 0; c < CLASSES.length; c++) {
+            total += Math.exp(-0.5 * (distances[c] - best));
+        }
+        float confidence = (float) (1.0 / total);
+
+        out.gesture = confidence >= MIN_CONFIDENCE ? CLASSES[bestClass] : RPSGesture.UNKNOWN;
+        out.confidence = confidence;
+    }
+
+    /**
+     * Cosine of the 3D angle at joint {@code b} between joints {@code a} and {@code c}.
+     */
+    private static float bend(float[] landmarks, int base, int a, int b, int c) {
+        int ia = base + a * GestureClassifier.FLOATS_PER_LANDMARK;
+        int ib = base + b * GestureClassifier.FLOATS_PER_LANDMARK;
+        int ic = base + c * GestureClassifier.FLOATS_PER_LANDMARK;
+
+        float abX = landmarks[ia] - landmarks[ib];
+        float abY = landmarks[ia + 1] - landmarks[ib + 1];
+        float abZ = landmarks[ia + 2] - landmarks[ib + 2];
+        float cbX = landmarks[ic] - landmarks[ib];
+        float cbY = landmarks[ic + 1] - landmarks[ib + 1];
+        float cbZ = landmarks[ic + 2] - landmarks[ib + 2];
+
+        float magSquared = (abX * abX + abY * abY + abZ * abZ) * (cbX * cbX + cbY * cbY + cbZ * cbZ);
+        if (magSquared == 0f) return 0f;
+        return (abX * cbX + abY * cbY + abZ * cbZ) / (float) Math.sqrt(magSquared);
+    }
+
+    private static float distance(float[] landmarks, int base, int a, int b) {
+        int ia = base + a * GestureClassifier.FLOATS_PER_LANDMARK;
+        int ib = base + b * GestureClassifier.FLOATS_PER_LANDMARK;
+        float dx = landmarks[ia] - landmarks[ib];
+        float dy = landmarks[ia + 1] - landmarks[ib + 1];
+        float dz = landmarks[ia + 2] - landmarks[ib + 2];
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Absolute z of the palm normal, from the wrist, index and pinky knuckles: 1 when the palm
+     * (or the back of the hand) faces the camera, 0 when it is edge-on.
+     */
+    private static float palmFacing(float[] landmarks, int base) {
+        int w = base + WRIST * GestureClassifier.FLOATS_PER_LANDMARK;
+        int i = base + INDEX_MCP * GestureClassifier.FLOATS_PER_LANDMARK;
+        int p = base + PINKY_MCP * GestureClassifier.FLOATS_PER_LANDMARK;
+
+        float ux = landmarks[i] - landmarks[w], uy = landmarks[i + 1] - landmarks[w + 1], uz = landmarks[i + 2] - landmarks[w + 2];
+        float vx = landmarks[p] - landmarks[w], vy = landmarks[p + 1] - landmarks[w + 1], vz = landmarks[p + 2] - landmarks[w + 2];
+        float nx = uy * vz - uz * vy;
+        float ny = uz * vx - ux * vz;
+        float nz = ux * vy - uy * vx;
+
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        return length > 0f ? Math.abs(nz) / length : 0f;
+    }
+}
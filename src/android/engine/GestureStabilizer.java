@@ -0,0 +1,146 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Smooths the per-frame gesture of one player over a short window of frames.
+ *
+ * The last {@code windowSize} gestures and their confidences are kept in a primitive ring
+ * buffer. Agreement and confidence are separate thresholds: a gesture becomes the stable one
+ * when it was seen in at least the enter ratio of the window's frames and its mean confidence
+ * over those frames reaches the minimum confidence. The stable gesture is only dropped again
+ * when its share of the frames falls below the (lower) exit ratio. A single misread frame
+ * therefore never flips the result, and a steady gesture stabilizes whatever its confidence
+ * as long as the classifier trusts it enough.
+ */
+public final class GestureStabilizer {
+
+    public static final int DEFAULT_WINDOW_SIZE = 8;
+    public static final float DEFAULT_ENTER_RATIO = 0.6f;
+    public static final float DEFAULT_EXIT_RATIO = 0.35f;
+    public static final float DEFAULT_MIN_CONFIDENCE = GestureModel.MIN_CONFIDENCE;
+
+    private static final RPSGesture[] GESTURES = RPSGesture.values();
+
+    private final int windowSize;
+    private final float enterRatio;
+    private final float exitRatio;
+    private final float minConfidence;
+
+    // Ring buffer of recent frames, -1 marks an empty slot
+    private final int[] gestures;
+    private final float[] confidences;
+    private final int[] counts = new int[GESTURES.length];
+    private final float[] confidenceSums = new float[GESTURES.length];
+    private int head = 0;
+
+    private RPSGesture stableGesture = RPSGesture.UNKNOWN;
+    private float stableShare = 0f;
+
+    public GestureStabilizer() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_ENTER_RATIO, DEFAULT_EXIT_RATIO);
+    }
+
+    public GestureStabilizer(int windowSize, float enterRatio, float exitRatio) {
+        this(windowSize, enterRatio, exitRatio, DEFAULT_MIN_CONFIDENCE);
+    }
+
+    /**
+     * @param minConfidence mean confidence a gesture needs over its frames in the window to
+     *                      become the stable one
+     */
+    public GestureStabilizer(int windowSize, float enterRatio, float exitRatio, float minConfidence) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize must be at least 1");
+        }
+        if (exitRatio < 0f || exitRatio > enterRatio || enterRatio > 1f) {
+            throw new IllegalArgumentException("Expected 0 <= exitRatio <= enterRatio <= 1");
+        }
+        if (minConfidence < 0f || minConfidence > 1f) {
+            throw new IllegalArgumentException("minConfidence must be between 0 and 1");
+        }
+        this.windowSize = windowSize;
+        this.enterRatio = enterRatio;
+        this.exitRatio = exitRatio;
+        this.minConfidence = minConfidence;
+        this.gestures = new int[windowSize];
+        this.confidences = new float[windowSize];
+        reset();
+    }
+
+    /**
+     * Adds the gesture seen in the current frame. A frame without this player's hand can be
+     * fed as {@link RPSGesture#UNKNOWN} with confidence 0, which ages the window out.
+     *
+     * @return true if the stable gesture changed with this frame
+     */
+    public boolean update(RPSGesture gesture, float confidence) {
+        gestures[head] = gesture.ordinal();
+        confidences[head] = Math.max(0f, confidence);
+        head = (head + 1) % windowSize;
+
+        // Re-tally the window, it is only a handful of entries
+        for (int g = 0; g < counts.length; g++) {
+            counts[g] = 0;
+            confidenceSums[g] = 0f;
+        }
+        for (int i = 0; i < windowSize; i++) {
+            if (gestures[i] >= 0) {
+                counts[gestures[i]]++;
+                confidenceSums[gestures[i]] += confidences[i];
+            }
+        }
+
+        // Most frames wins, the more confident gesture breaks a tie
+        int best = 0;
+        for (int g = 1; g < counts.length; g++) {
+            if (counts[g] > counts[best]
+                    || (counts[g] == counts[best] && confidenceSums[g] > confidenceSums[best])) {
+                best = g;
+            }
+        }
+
+        int unknown = RPSGesture.UNKNOWN.ordinal();
+        int current = stableGesture.ordinal();
+        float currentShare = counts[current] / (float) windowSize;
+        float bestShare = counts[best] / (float) windowSize;
+        // Nobody needs to be sure of UNKNOWN, it is what is left when nothing else holds
+        boolean bestConfident = best == unknown
+                || (counts[best] > 0 && confidenceSums[best] / counts[best] >= minConfidence);
+
+        RPSGesture next = stableGesture;
+        if (best != current && bestShare >= enterRatio && bestConfident) {
+            next = GESTURES[best];
+            currentShare = bestShare;
+        } else if (current != unknown && currentShare < exitRatio) {
+            next = RPSGesture.UNKNOWN;
+            currentShare = counts[unknown] / (float) windowSize;
+        }
+
+        stableShare = currentShare;
+        if (next == stableGesture) {
+            return false;
+        }
+        stableGesture = next;
+        return true;
+    }
+
+    public RPSGesture getStableGesture() {
+        return stableGesture;
+    }
+
+    /**
+     * Share of the window's frames (0.0 to 1.0) that saw the stable gesture.
+     */
+    public float getStableShare() {
+        return stableShare;
+    }
+
+    public void reset() {
+        for (int i = 0; i < windowSize; i++) {
+            gestures[i] = -1;
+            confidences[i] = 0f;
+        }
+        head = 0;
+        stableGesture = RPSGesture.UNKNOWN;
+        stableShare = 0f;
+    }
+}
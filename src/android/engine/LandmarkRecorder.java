@@ -0,0 +1,172 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Appends the landmarks of every analyzed frame to a file in the {@link LandmarkRecording} format.
+ *
+ * {@link #record} only copies the frame into a batch buffer; full batches are written by a
+ * dedicated thread, so the thread delivering results never touches the disk. When the writer
+ * falls behind and no batch buffer is free, frames are dropped and counted instead of blocking.
+ *
+ * {@link #close} may run on another thread while a frame is being recorded: the batch under
+ * construction is guarded by the recorder's lock, which the recording thread holds only for
+ * the copy, so the frame either lands whole in the file or is rejected.
+ */
+public final class LandmarkRecorder {
+
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final int BATCH_COUNT = 4;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    // Queued by close() to stop the writer once everything before it is written
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final Thread writerThread;
+    private final BlockingQueue<ByteBuffer> freeBatches = new ArrayBlockingQueue<>(BATCH_COUNT);
+    private final BlockingQueue<ByteBuffer> fullBatches = new ArrayBlockingQueue<>(BATCH_COUNT + 1);
+
+    // Producer state, touched by the thread calling record() and by close(), guarded by this
+    private ByteBuffer current;
+    private long batchStartedMs;
+
+    private volatile boolean closed = false;
+    private volatile IOException writeError;
+    private volatile long recordedFrames = 0;
+    private volatile long droppedFrames = 0;
+
+    public LandmarkRecorder(File file) throws IOException {
+        channel = new FileOutputStream(file).getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(LandmarkRecording.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LandmarkRecording.MAGIC).putInt(LandmarkRecording.VERSION).flip();
+        channel.write(header);
+
+        for (int i = 0; i < BATCH_COUNT; i++) {
+            freeBatches.add(ByteBuffer.allocateDirect(BATCH_BYTES).order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        writerThread = new Thread(this::writeLoop, "LandmarkRecorder");
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    /**
+     * Appends one frame. Frames are expected one at a time, in timestamp order.
+     *
+     * @param landmarks        {@link GestureClassifier#FLOATS_PER_HAND} floats per hand
+     * @param handedness       {@link LandmarkRecording} handedness per hand, or null if unknown
+     * @param handednessScores handedness score per hand, or null if unknown
+     * @return false if the frame was dropped
+     */
+    public synchronized boolean record(long timestampMs, float[] landmarks, int handCount,
+                                       byte[] handedness, float[] handednessScores) {
+        if (closed || writeError != null) return false;
+
+        int hands = Math.min(handCount, LandmarkRecording.MAX_HANDS);
+        int size = LandmarkRecording.recordBytes(hands);
+
+        if (current != null && (current.remaining() < size
+                || timestampMs - batchStartedMs >= FLUSH_INTERVAL_MS)) {
+            submitCurrent();
+        }
+        if (current == null) {
+            current = freeBatches.poll();
+            if (current == null) {
+                droppedFrames++;
+                return false;
+            }
+            batchStartedMs = timestampMs;
+        }
+
+        ByteBuffer batch = current;
+        batch.putLong(timestampMs);
+        batch.put((byte) hands);
+        for (int h = 0; h < hands; h++) {
+            int offset = h * GestureClassifier.FLOATS_PER_HAND;
+            for (int i = 0; i < GestureClassifier.FLOATS_PER_HAND; i++) {
+                batch.putFloat(landmarks[offset + i]);
+            }
+            batch.put(handedness != null ? handedness[h] : LandmarkRecording.HANDEDNESS_UNKNOWN);
+            batch.putFloat(handednessScores != null ? handednessScores[h] : 0f);
+        }
+        recordedFrames++;
+        return true;
+    }
+
+    /**
+     * Writes what is left and closes the file; frames recorded afterwards are rejected. Safe to
+     * call from any thread, but it blocks until the writer thread is done, so keep it off the
+     * main thread.
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+
+            if (current != null) {
+                submitCurrent();
+            }
+            fullBatches.add(END_OF_STREAM);
+        }
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    public long getRecordedFrames() {
+        return recordedFrames;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public IOException getWriteError() {
+        return writeError;
+    }
+
+    private void submitCurrent() {
+        current.flip();
+        fullBatches.add(current);
+        current = null;
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            try {
+                batch = fullBatches.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == END_OF_STREAM) return;
+
+            try {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+            } catch (IOException e) {
+                writeError = e;
+            }
+            batch.clear();
+            freeBatches.add(batch);
+        }
+    }
+}
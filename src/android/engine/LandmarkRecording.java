@@ -0,0 +1,46 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Binary layout shared by {@link LandmarkRecorder} and {@link LandmarkReplay}.
+ *
+ * All values are little endian. A file starts with a header followed by one record per frame:
+ * <pre>
+ * header: int magic ("RPSL"), int version
+ * record: long timestampMs, byte handCount, then per hand:
+ *         63 floats landmarks (x, y, z per landmark), byte handedness, float handedness score
+ * </pre>
+ * A record with two hands takes 523 bytes, about 56 MB per hour at 30 frames per second.
+ */
+public final class LandmarkRecording {
+
+    public static final int MAGIC = 0x4C535052; // "RPSL" read as little endian
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 8;
+
+    public static final byte HANDEDNESS_UNKNOWN = -1;
+    public static final byte HANDEDNESS_LEFT = 0;
+    public static final byte HANDEDNESS_RIGHT = 1;
+
+    public static final int MAX_HANDS = 8;
+
+    static final int RECORD_HEADER_BYTES = 8 + 1;
+    static final int BYTES_PER_HAND = GestureClassifier.FLOATS_PER_HAND * 4 + 1 + 4;
+
+    private LandmarkRecording() {
+    }
+
+    public static int recordBytes(int handCount) {
+        return RECORD_HEADER_BYTES + handCount * BYTES_PER_HAND;
+    }
+
+    /**
+     * One recorded frame, owned by the caller and reused across frames.
+     */
+    public static final class Frame {
+        public long timestampMs;
+        public int handCount;
+        public final float[] landmarks = new float[MAX_HANDS * GestureClassifier.FLOATS_PER_HAND];
+        public final byte[] handedness = new byte[MAX_HANDS];
+        public final float[] handednessScores = new float[MAX_HANDS];
+    }
+}
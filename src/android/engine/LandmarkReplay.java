@@ -0,0 +1,137 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a {@link LandmarkRecorder} file through a memory mapping and streams its frames.
+ *
+ * Frames are decoded into a caller-owned {@link LandmarkRecording.Frame}, so reading allocates
+ * nothing per frame. Files are mapped in windows, which keeps the address space used by
+ * recordings of several hours bounded.
+ */
+public final class LandmarkReplay implements Closeable {
+
+    public interface Listener {
+        /**
+         * Called for every replayed frame with the engine result for it.
+         */
+        void onFrame(LandmarkRecording.Frame frame, FrameResult result);
+    }
+
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long size;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    public LandmarkReplay(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.size = channel.size();
+
+        if (size < LandmarkRecording.HEADER_BYTES) {
+            close();
+            throw new IOException("Not a landmark recording: " + file);
+        }
+        map(0);
+        int magic = window.getInt();
+        int version = window.getInt();
+        if (magic != LandmarkRecording.MAGIC || version != LandmarkRecording.VERSION) {
+            close();
+            throw new IOException("Unsupported landmark recording (magic " + Integer.toHexString(magic)
+                    + ", version " + version + "): " + file);
+        }
+    }
+
+    /**
+     * Decodes the next frame.
+     *
+     * @return false at the end of the file, or if the last record was cut short
+     */
+    public boolean next(LandmarkRecording.Frame out) throws IOException {
+        if (!ensureAvailable(LandmarkRecording.RECORD_HEADER_BYTES)) return false;
+
+        long timestampMs = window.getLong();
+        int hands = window.get();
+        if (hands < 0 || hands > LandmarkRecording.MAX_HANDS) {
+            throw new IOException("Corrupt landmark record at offset " + position());
+        }
+        if (!ensureAvailable(hands * LandmarkRecording.BYTES_PER_HAND)) return false;
+
+        out.timestampMs = timestampMs;
+        out.handCount = hands;
+        for (int h = 0; h < hands; h++) {
+            int offset = h * GestureClassifier.FLOATS_PER_HAND;
+            for (int i = 0; i < GestureClassifier.FLOATS_PER_HAND; i++) {
+                out.landmarks[offset + i] = window.getFloat();
+            }
+            out.handedness[h] = window.get();
+            out.handednessScores[h] = window.getFloat();
+        }
+        return true;
+    }
+
+    /**
+     * Feeds every remaining frame through the engine, the way the detection screen does.
+     *
+     * @param listener notified per frame, may be null
+     * @return the number of frames replayed
+     */
+    public long replay(GestureEngine engine, FrameResult result, LandmarkRecording.Frame frame,
+                       Listener listener) throws IOException {
+        long frames = 0;
+        while (next(frame)) {
+            engine.process(frame.landmarks, frame.handCount, result);
+            if (listener != null) {
+                listener.onFrame(frame, result);
+            }
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * Starts reading from the first frame again.
+     */
+    public void rewind() throws IOException {
+        map(LandmarkRecording.HEADER_BYTES);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        file.close();
+    }
+
+    private long position() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * Makes sure the next {@code bytes} bytes are inside the mapped window, moving it if needed.
+     */
+    private boolean ensureAvailable(int bytes) throws IOException {
+        if (window.remaining() >= bytes) return true;
+
+        long position = position();
+        if (size - position < bytes) return false;
+        map(position);
+        return true;
+    }
+
+    private void map(long position) throws IOException {
+        long length = Math.min(WINDOW_BYTES, size - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = position;
+    }
+}
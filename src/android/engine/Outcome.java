@@ -0,0 +1,23 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Result of a two-player round.
+ */
+public enum Outcome {
+    NONE,        // not decided, a player is missing or their gesture is unknown
+    TIE,
+    PLAYER1_WINS,
+    PLAYER2_WINS;
+
+    /**
+     * Rock Paper Scissors rules:
+     * Rock beats Scissors
+     * Paper beats Rock
+     * Scissors beats Paper
+     */
+    public static Outcome of(RPSGesture player1, RPSGesture player2) {
+        if (player1 == RPSGesture.UNKNOWN || player2 == RPSGesture.UNKNOWN) return NONE;
+        if (player1 == player2) return TIE;
+        return RoundResolver.beats(player1, player2) ? PLAYER1_WINS : PLAYER2_WINS;
+    }
+}
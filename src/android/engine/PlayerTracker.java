@@ -0,0 +1,234 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import java.util.Arrays;
+
+/**
+ * Keeps each player on the same index from frame to frame.
+ *
+ * Every player slot holds a track: the last box and landmark centroid of its hand and how fast
+ * the centroid moves. Each frame the hands are matched to the tracks by a score made of the box
+ * overlap (IoU) with the track's predicted box and the distance to its predicted centroid. All
+ * candidate pairs are ranked once and taken greedily, best first, so hands that cross or sit
+ * close together keep their players. A track that finds no hand coasts on its velocity for a few
+ * frames before its slot is freed, so a hand lost for a frame or two comes back as the same
+ * player. New hands take free slots left to right as seen on the mirrored preview, which keeps
+ * the usual numbering when players enter together.
+ *
+ * Scratch space is sized for the slot count up front: an update allocates nothing and ranks at
+ * most slots x hands pairs. Not thread safe, the owning {@link GestureEngine} is fed from one
+ * thread.
+ */
+public final class PlayerTracker {
+
+    public static final float DEFAULT_MIN_IOU = 0.1f;
+    public static final float DEFAULT_MAX_DISTANCE = 0.2f; // centroid distance, normalized
+    public static final int DEFAULT_MAX_COAST_FRAMES = 8;
+
+    private static final float VELOCITY_SMOOTHING = 0.5f;
+
+    private final int slots;
+    private final float minIou;
+    private final float maxDistance;
+    private final int maxCoastFrames;
+
+    // Tracks, indexed by slot
+    private final boolean[] tracked;
+    private final boolean[] started; // track started in the last update
+    private final int[] missedFrames;
+    private final float[] boxes;     // left, top, right, bottom per slot
+    private final float[] centers;   // x, y per slot
+    private final float[] velocities;
+
+    // Per-update scratch
+    private final long[] pairs;      // score bits, slot and hand packed so a primitive sort ranks them
+    private final boolean[] slotMatched;
+    private final int[] newHands;
+
+    public PlayerTracker(int slots) {
+        this(slots, DEFAULT_MIN_IOU, DEFAULT_MAX_DISTANCE, DEFAULT_MAX_COAST_FRAMES);
+    }
+
+    public PlayerTracker(int slots, float minIou, float maxDistance, int maxCoastFrames) {
+        if (slots < 1 || slots > 0xFFFF) {
+            throw new IllegalArgumentException("slots must be between 1 and 65535");
+        }
+        if (maxDistance <= 0f || maxCoastFrames < 0) {
+            throw new IllegalArgumentException("Invalid tracking settings");
+        }
+        this.slots = slots;
+        this.minIou = minIou;
+        this.maxDistance = maxDistance;
+        this.maxCoastFrames = maxCoastFrames;
+        tracked = new boolean[slots];
+        started = new boolean[slots];
+        missedFrames = new int[slots];
+        boxes = new float[slots * 4];
+        centers = new float[slots * 2];
+        velocities = new float[slots * 2];
+        pairs = new long[slots * slots];
+        slotMatched = new boolean[slots];
+        newHands = new int[slots];
+    }
+
+    /**
+     * Matches this frame's hands to the tracks.
+     *
+     * @param handBoxes   left, top, right, bottom per hand, normalized
+     * @param handCenters landmark centroid x, y per hand, normalized
+     * @param hands       number of hands, at most the slot count
+     * @param handSlots   receives the slot of every hand
+     */
+    public void update(float[] handBoxes, float[] handCenters, int hands, int[] handSlots) {
+        if (hands > slots) {
+            throw new IllegalArgumentException("More hands than player slots");
+        }
+
+        int pairCount = 0;
+        for (int s = 0; s < slots; s++) {
+            slotMatched[s] = false;
+            started[s] = false;
+            if (!tracked[s]) continue;
+
+            // Where the track is expected this frame
+            float steps = missedFrames[s] + 1;
+            float dx = velocities[s * 2] * steps;
+            float dy = velocities[s * 2 + 1] * steps;
+            for (int h = 0; h < hands; h++) {
+                float iou = iou(boxes, s * 4, dx, dy, handBoxes, h * 4);
+                float ex = handCenters[h * 2] - centers[s * 2] - dx;
+                float ey = handCenters[h * 2 + 1] - centers[s * 2 + 1] - dy;
+                float distance = (float) Math.sqrt(ex * ex + ey * ey);
+                if (iou < minIou && distance > maxDistance) continue;
+
+                float score = iou + Math.max(0f, 1f - distance / maxDistance);
+                // Non-negative floats order like their bits
+                pairs[pairCount++] = (long) Float.floatToIntBits(score) << 32 | (long) s << 16 | h;
+            }
+        }
+
+        for (int h = 0; h < hands; h++) {
+            handSlots[h] = -1;
+        }
+
+        // Greedy assignment, best pair first
+        Arrays.sort(pairs, 0, pairCount);
+        for (int i = pairCount - 1; i >= 0; i--) {
+            int s = (int) (pairs[i] >>> 16) & 0xFFFF;
+            int h = (int) pairs[i] & 0xFFFF;
+            if (slotMatched[s] || handSlots[h] >= 0) continue;
+            slotMatched[s] = true;
+            handSlots[h] = s;
+            follow(s, handBoxes, handCenters, h);
+        }
+
+        // Hands nobody was tracking start new tracks, left to right on screen
+        int newCount = 0;
+        for (int h = 0; h < hands; h++) {
+            if (handSlots[h] >= 0) continue;
+            float key = 1.0f - handBoxes[h * 4 + 2];
+            int j = newCount - 1;
+            while (j >= 0 && 1.0f - handBoxes[newHands[j] * 4 + 2] > key) {
+                newHands[j + 1] = newHands[j];
+                j--;
+            }
+            newHands[j + 1] = h;
+            newCount++;
+        }
+        for (int i = 0; i < newCount; i++) {
+            int h = newHands[i];
+            int s = freeSlot();
+            slotMatched[s] = true;
+            handSlots[h] = s;
+            start(s, handBoxes, handCenters, h);
+        }
+
+        // Tracks without a hand coast until they are given up
+        for (int s = 0; s < slots; s++) {
+            if (!tracked[s] || slotMatched[s]) continue;
+            if (++missedFrames[s] > maxCoastFrames) {
+                tracked[s] = false;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the slot has a track, with or without a hand this frame.
+     */
+    public boolean isTracked(int slot) {
+        return tracked[slot];
+    }
+
+    /**
+     * Returns true if the slot's track started with the last update, i.e. a new player.
+     */
+    public boolean isNewTrack(int slot) {
+        return started[slot];
+    }
+
+    /**
+     * Returns how many updates in a row the slot's track has gone without a hand.
+     */
+    public int getMissedFrames(int slot) {
+        return missedFrames[slot];
+    }
+
+    public void reset() {
+        Arrays.fill(tracked, false);
+        Arrays.fill(started, false);
+        Arrays.fill(missedFrames, 0);
+    }
+
+    /**
+     * Returns an untracked slot, or the unmatched track that has coasted longest.
+     */
+    private int freeSlot() {
+        int best = -1;
+        for (int s = 0; s < slots; s++) {
+            if (!tracked[s]) return s;
+            if (!slotMatched[s] && (best < 0 || missedFrames[s] > missedFrames[best])) {
+                best = s;
+            }
+        }
+        // Never -1: there are no more hands than slots, so a slot is left unmatched
+        return best;
+    }
+
+    private void start(int s, float[] handBoxes, float[] handCenters, int h) {
+        tracked[s] = true;
+        started[s] = true;
+        missedFrames[s] = 0;
+        System.arraycopy(handBoxes, h * 4, boxes, s * 4, 4);
+        centers[s * 2] = handCenters[h * 2];
+        centers[s * 2 + 1] = handCenters[h * 2 + 1];
+        velocities[s * 2] = 0f;
+        velocities[s * 2 + 1] = 0f;
+    }
+
+    private void follow(int s, float[] handBoxes, float[] handCenters, int h) {
+        float steps = missedFrames[s] + 1;
+        float vx = (handCenters[h * 2] - centers[s * 2]) / steps;
+        float vy = (handCenters[h * 2 + 1] - centers[s * 2 + 1]) / steps;
+        velocities[s * 2] += VELOCITY_SMOOTHING * (vx - velocities[s * 2]);
+        velocities[s * 2 + 1] += VELOCITY_SMOOTHING * (vy - velocities[s * 2 + 1]);
+
+        missedFrames[s] = 0;
+        System.arraycopy(handBoxes, h * 4, boxes, s * 4, 4);
+        centers[s * 2] = handCenters[h * 2];
+        centers[s * 2 + 1] = handCenters[h * 2 + 1];
+    }
+
+    /**
+     * Intersection over union of box {@code a} shifted by (dx, dy) and box {@code b}.
+     */
+    private static float iou(float[] a, int ai, float dx, float dy, float[] b, int bi) {
+        float aLeft = a[ai] + dx, aTop = a[ai + 1] + dy, aRight = a[ai + 2] + dx, aBottom = a[ai + 3] + dy;
+        float width = Math.min(aRight, b[bi + 2]) - Math.max(aLeft, b[bi]);
+        float height = Math.min(aBottom, b[bi + 3]) - Math.max(aTop, b[bi + 1]);
+        if (width <= 0f || height <= 0f) return 0f;
+
+        float intersection = width * height;
+        float union = (aRight - aLeft) * (aBottom - aTop) + (b[bi + 2] - b[bi]) * (b[bi + 3] - b[bi + 1])
+                - intersection;
+        return union > 0f ? intersection / union : 0f;
+    }
+}
@@ -1,12 +1,11 @@
-package com.outsystems.plugins.rpsgame;
-
-import android.graphics.Color;
+package com.outsystems.plugins.rpsgame.engine;
 
 public enum RPSGesture {
-    ROCK("Rock", Color.RED),
-    PAPER("Paper", Color.GREEN),
-    SCISSORS("Scissors", Color.BLUE),
-    UNKNOWN("Unknown", Color.GRAY);
+    // Colors are ARGB, same values as android.graphics.Color, so the engine needs no Android classes
+    ROCK("Rock", 0xFFFF0000),
+    PAPER("Paper", 0xFF00FF00),
+    SCISSORS("Scissors", 0xFF0000FF),
+    UNKNOWN("Unknown", 0xFF888888);
     
     private final String displayName;
     private final int color;
@@ -23,4 +22,4 @@ public enum RPSGesture {
     public int getColor() {
         return color;
     }
-}
\ No newline at end of file
+}
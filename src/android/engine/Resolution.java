@@ -0,0 +1,10 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Result of a round between any number of players.
+ */
+public enum Resolution {
+    UNDECIDED, // a player is missing or their gesture is unknown
+    DRAW,      // one gesture for everybody, or all three gestures at once
+    DECIDED    // exactly two gestures were thrown, everyone with the stronger one wins
+}
@@ -0,0 +1,319 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import java.util.Arrays;
+
+/**
+ * Runs best-of-N matches made of "Rock, Paper, Scissors, Shoot!" rounds.
+ *
+ * A round starts once every player is in view. The countdown has one beat per word; the throws
+ * are captured in a short window around "Shoot!" and each player's throw is the gesture seen
+ * most (weighted by confidence) in that window. Frames outside the window do not affect the
+ * result, so moving hands between rounds never change a decided outcome.
+ *
+ * Time is passed in by the caller in milliseconds of one monotonic clock: frame times through
+ * {@link #onFrame} and the current time through {@link #advance}. Frames usually come from a
+ * worker thread and {@link #advance} from the UI thread, so all methods are synchronized.
+ */
+public final class RoundController {
+
+    public enum Phase {
+        WAITING,    // not every player in view
+        COUNTDOWN,  // "Rock", "Paper", "Scissors"
+        CAPTURE,    // window around "Shoot!", throws are being collected
+        RESULT,     // round decided, result on screen
+        MATCH_OVER  // a player reached the wins needed
+    }
+
+    public static final String[] COUNTDOWN_WORDS = {"Rock...", "Paper...", "Scissors...", "Shoot!"};
+
+    public static final int DEFAULT_BEST_OF = 3;
+    public static final long DEFAULT_BEAT_MS = 600;
+    public static final long DEFAULT_CAPTURE_BEFORE_MS = 150; // before "Shoot!"
+    public static final long DEFAULT_CAPTURE_AFTER_MS = 450;  // after "Shoot!"
+    public static final long DEFAULT_RESULT_MS = 2500;
+
+    // Results of frames in the window may still be in flight when it closes
+    private static final long RESULT_GRACE_MS = 200;
+    private static final int MIN_CAPTURED_FRAMES = 2;
+
+    private static final RPSGesture[] GESTURES = RPSGesture.values();
+
+    private final int players;
+    private final int bestOf;
+    private final int winsNeeded;
+    private final long beatMs;
+    private final long captureBeforeMs;
+    private final long captureAfterMs;
+    private final long resultMs;
+
+    private Phase phase = Phase.WAITING;
+    private long countdownStartMs;
+    private long phaseEndMs;
+    private int beat = -1;
+
+    // Votes of the current capture window, [player][gesture]
+    private final float[][] votes;
+    private final int[] capturedFrames;
+
+    // Last decided round and match score
+    private int round = 0;
+    private final int[] wins;
+    private final RPSGesture[] throwsMade;
+    private final float[] throwConfidences;
+    private long decisionLatencyMs = -1;
+    private final RoundResolver.Result roundResult = new RoundResolver.Result();
+
+    public RoundController() {
+        this(GestureEngine.DEFAULT_MAX_PLAYERS, DEFAULT_BEST_OF);
+    }
+
+    public RoundController(int players, int bestOf) {
+        this(players, bestOf, DEFAULT_BEAT_MS, DEFAULT_CAPTURE_BEFORE_MS, DEFAULT_CAPTURE_AFTER_MS,
+                DEFAULT_RESULT_MS);
+    }
+
+    public RoundController(int players, int bestOf, long beatMs, long captureBeforeMs, long captureAfterMs,
+                           long resultMs) {
+        if (players < 2 || players > 32) {
+            throw new IllegalArgumentException("players must be between 2 and 32");
+        }
+        if (bestOf < 1 || bestOf % 2 == 0) {
+            throw new IllegalArgumentException("bestOf must be a positive odd number");
+        }
+        if (beatMs <= 0 || captureBeforeMs < 0 || captureAfterMs <= 0 || resultMs < 0) {
+            throw new IllegalArgumentException("Invalid round timing");
+        }
+        this.players = players;
+        this.bestOf = bestOf;
+        this.winsNeeded = bestOf / 2 + 1;
+        this.beatMs = beatMs;
+        this.captureBeforeMs = Math.min(captureBeforeMs, beatMs);
+        this.captureAfterMs = captureAfterMs;
+        this.resultMs = resultMs;
+
+        votes = new float[players][GESTURES.length];
+        capturedFrames = new int[players];
+        wins = new int[players];
+        throwsMade = new RPSGesture[players];
+        throwConfidences = new float[players];
+        Arrays.fill(throwsMade, RPSGesture.UNKNOWN);
+    }
+
+    /**
+     * Feeds the engine result of a frame captured at {@code frameTimeMs}.
+     *
+     * @return true if the phase changed and the caller should call {@link #advance} now
+     */
+    public synchronized boolean onFrame(long frameTimeMs, FrameResult frame) {
+        if (phase == Phase.WAITING) {
+            if (frame.handCount < players) return false;
+            startCountdown(frameTimeMs);
+            return true;
+        }
+
+        if (phase == Phase.COUNTDOWN || phase == Phase.CAPTURE) {
+            long shootMs = shootTimeMs();
+            if (frameTimeMs < shootMs - captureBeforeMs || frameTimeMs > shootMs + captureAfterMs) {
+                return false;
+            }
+            for (int p = 0; p < players && p < frame.maxPlayers; p++) {
+                RPSGesture gesture = frame.gestures[p];
+                if (frame.playerHand[p] < 0 || gesture == RPSGesture.UNKNOWN) continue;
+                votes[p][gesture.ordinal()] += Math.max(0.01f, frame.confidences[p]);
+                capturedFrames[p]++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the state machine to {@code nowMs}.
+     *
+     * @return milliseconds until the next scheduled change, or -1 if only a frame can cause one
+     */
+    public synchronized long advance(long nowMs) {
+        switch (phase) {
+            case COUNTDOWN:
+            case CAPTURE: {
+                long shootMs = shootTimeMs();
+                beat = (int) Math.min(COUNTDOWN_WORDS.length - 1, Math.max(0, (nowMs - countdownStartMs) / beatMs));
+
+                long decideMs = shootMs + captureAfterMs + RESULT_GRACE_MS;
+                if (nowMs >= decideMs) {
+                    decideRound(nowMs);
+                    return phaseEndMs - nowMs;
+                }
+
+                phase = nowMs >= shootMs - captureBeforeMs ? Phase.CAPTURE : Phase.COUNTDOWN;
+                long nextBeatMs = countdownStartMs + (beat + 1) * beatMs;
+                long next = beat < COUNTDOWN_WORDS.length - 1 ? nextBeatMs : decideMs;
+                if (phase == Phase.COUNTDOWN) {
+                    next = Math.min(next, shootMs - captureBeforeMs);
+                }
+                return Math.max(0, next - nowMs);
+            }
+            case RESULT:
+            case MATCH_OVER:
+                if (nowMs < phaseEndMs) return phaseEndMs - nowMs;
+                if (phase == Phase.MATCH_OVER) {
+                    Arrays.fill(wins, 0);
+                    round = 0;
+                }
+                phase = Phase.WAITING;
+                beat = -1;
+                return -1;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Forgets the match in progress.
+     */
+    public synchronized void reset() {
+        phase = Phase.WAITING;
+        beat = -1;
+        round = 0;
+        Arrays.fill(wins, 0);
+        Arrays.fill(throwsMade, RPSGesture.UNKNOWN);
+        Arrays.fill(throwConfidences, 0f);
+        decisionLatencyMs = -1;
+        roundResult.clear();
+    }
+
+    /**
+     * Drops a countdown in progress, keeping the score, e.g. when the screen goes to the
+     * background. The next frame with every player starts it over.
+     */
+    public synchronized void cancelRound() {
+        if (phase != Phase.COUNTDOWN && phase != Phase.CAPTURE) return;
+        phase = Phase.WAITING;
+        beat = -1;
+    }
+
+    public synchronized Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns the countdown word index (see {@link #COUNTDOWN_WORDS}), or -1 outside a countdown.
+     */
+    public synchronized int getBeat() {
+        return phase == Phase.COUNTDOWN || phase == Phase.CAPTURE ? beat : -1;
+    }
+
+    public synchronized int getRound() {
+        return round;
+    }
+
+    public synchronized int getWins(int player) {
+        return wins[player];
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getBestOf() {
+        return bestOf;
+    }
+
+    /**
+     * Returns what a player threw in the last decided round, UNKNOWN if nothing was captured.
+     */
+    public synchronized RPSGesture getThrow(int player) {
+        return throwsMade[player];
+    }
+
+    /**
+     * Returns the share of the capture window's votes behind a player's throw, 0 if nothing was
+     * captured.
+     */
+    public synchronized float getThrowConfidence(int player) {
+        return throwConfidences[player];
+    }
+
+    /**
+     * Returns the time from the start of the last round's countdown to its decision, -1 before
+     * the first round.
+     */
+    public synchronized long getDecisionLatencyMs() {
+        return decisionLatencyMs;
+    }
+
+    /**
+     * Copies the result of the last decided round into {@code out}; UNDECIDED if a throw was missed.
+     */
+    public synchronized void getRoundResult(RoundResolver.Result out) {
+        out.set(roundResult);
+    }
+
+    /**
+     * Returns the players who won the match (bit p for player p) once it is over, 0 before that.
+     * Players who win the deciding round together share the match.
+     */
+    public synchronized int getMatchWinners() {
+        return phase == Phase.MATCH_OVER ? matchWinners() : 0;
+    }
+
+    private long shootTimeMs() {
+        return countdownStartMs + (COUNTDOWN_WORDS.length - 1) * beatMs;
+    }
+
+    private void startCountdown(long nowMs) {
+        phase = Phase.COUNTDOWN;
+        countdownStartMs = nowMs;
+        beat = 0;
+        for (int p = 0; p < players; p++) {
+            capturedFrames[p] = 0;
+            for (int g = 0; g < GESTURES.length; g++) {
+                votes[p][g] = 0f;
+            }
+        }
+    }
+
+    private void decideRound(long nowMs) {
+        for (int p = 0; p < players; p++) {
+            RPSGesture best = RPSGesture.UNKNOWN;
+            float bestVotes = 0f;
+            float totalVotes = 0f;
+            if (capturedFrames[p] >= MIN_CAPTURED_FRAMES) {
+                for (int g = 0; g < GESTURES.length; g++) {
+                    totalVotes += votes[p][g];
+                    if (votes[p][g] > bestVotes) {
+                        bestVotes = votes[p][g];
+                        best = GESTURES[g];
+                    }
+                }
+            }
+            throwsMade[p] = best;
+            throwConfidences[p] = totalVotes > 0f ? bestVotes / totalVotes : 0f;
+        }
+
+        RoundResolver.resolve(throwsMade, players, roundResult);
+        decisionLatencyMs = nowMs - countdownStartMs;
+        for (int p = 0; p < players; p++) {
+            if ((roundResult.winnerMask & (1 << p)) != 0) {
+                wins[p]++;
+            }
+        }
+        if (roundResult.resolution != Resolution.UNDECIDED) {
+            round++; // a missed throw is replayed
+        }
+
+        boolean matchOver = matchWinners() != 0;
+        phase = matchOver ? Phase.MATCH_OVER : Phase.RESULT;
+        phaseEndMs = nowMs + (matchOver ? 2 * resultMs : resultMs);
+        beat = -1;
+    }
+
+    private int matchWinners() {
+        int mask = 0;
+        for (int p = 0; p < players; p++) {
+            if (wins[p] >= winsNeeded) {
+                mask |= 1 << p;
+            }
+        }
+        return mask;
+    }
+}
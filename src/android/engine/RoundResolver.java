@@ -0,0 +1,92 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+/**
+ * Decides rounds from precomputed tables instead of comparing players pairwise.
+ *
+ * A round is fully described by which of the three gestures were thrown, so the players are
+ * reduced to a 3-bit presence mask in one pass and the winning gesture is looked up. Every
+ * player who threw it wins. That keeps resolution O(N) for any group size.
+ */
+public final class RoundResolver {
+
+    // BEATS[a][b] is true when gesture a beats gesture b, indexed by ordinal
+    private static final boolean[][] BEATS = new boolean[RPSGesture.values().length][RPSGesture.values().length];
+
+    // Winning gesture for each presence mask (bit = ordinal), null for a draw
+    private static final RPSGesture[] WINNER_BY_PRESENCE = new RPSGesture[1 << 3];
+
+    static {
+        BEATS[RPSGesture.ROCK.ordinal()][RPSGesture.SCISSORS.ordinal()] = true;
+        BEATS[RPSGesture.PAPER.ordinal()][RPSGesture.ROCK.ordinal()] = true;
+        BEATS[RPSGesture.SCISSORS.ordinal()][RPSGesture.PAPER.ordinal()] = true;
+
+        RPSGesture[] playable = {RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.SCISSORS};
+        for (RPSGesture a : playable) {
+            for (RPSGesture b : playable) {
+                if (BEATS[a.ordinal()][b.ordinal()]) {
+                    WINNER_BY_PRESENCE[(1 << a.ordinal()) | (1 << b.ordinal())] = a;
+                }
+            }
+        }
+    }
+
+    /**
+     * Output holder, reused by the caller.
+     */
+    public static final class Result {
+        public Resolution resolution = Resolution.UNDECIDED;
+        public RPSGesture winningGesture = RPSGesture.UNKNOWN; // UNKNOWN unless DECIDED
+        public int winnerMask;                                  // bit p set when player p won
+
+        public void clear() {
+            resolution = Resolution.UNDECIDED;
+            winningGesture = RPSGesture.UNKNOWN;
+            winnerMask = 0;
+        }
+
+        public void set(Result other) {
+            resolution = other.resolution;
+            winningGesture = other.winningGesture;
+            winnerMask = other.winnerMask;
+        }
+    }
+
+    private RoundResolver() {
+    }
+
+    public static boolean beats(RPSGesture a, RPSGesture b) {
+        return BEATS[a.ordinal()][b.ordinal()];
+    }
+
+    /**
+     * Resolves a round between the first {@code players} entries of {@code gestures}.
+     * At most 32 players, one bit each in the winner mask.
+     */
+    public static void resolve(RPSGesture[] gestures, int players, Result out) {
+        out.clear();
+        if (players < 2) return;
+
+        int presence = 0;
+        for (int p = 0; p < players; p++) {
+            RPSGesture gesture = gestures[p];
+            if (gesture == RPSGesture.UNKNOWN) return;
+            presence |= 1 << gesture.ordinal();
+        }
+
+        RPSGesture winner = WINNER_BY_PRESENCE[presence];
+        if (winner == null) {
+            out.resolution = Resolution.DRAW;
+            return;
+        }
+
+        int mask = 0;
+        for (int p = 0; p < players; p++) {
+            if (gestures[p] == winner) {
+                mask |= 1 << p;
+            }
+        }
+        out.resolution = Resolution.DECIDED;
+        out.winningGesture = winner;
+        out.winnerMask = mask;
+    }
+}
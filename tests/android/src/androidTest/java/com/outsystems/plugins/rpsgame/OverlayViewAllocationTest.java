@@ -0,0 +1,85 @@
+package com.outsystems.plugins.rpsgame;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RectF;
+import android.os.Debug;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that drawing the overlay allocates nothing once its labels are cached, so a busy
+ * screen does not feed the garbage collector at the frame rate.
+ *
+ * The runtime only counts the bytes allocated by the whole process, so other threads can add
+ * a little to a measurement. The draws are measured a few times and the quietest run has to
+ * stay under a budget smaller than one object per draw.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OverlayViewAllocationTest {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+    private static final int DRAWS = 500;
+    private static final int RUNS = 5;
+    // The smallest object takes 8 bytes, one per draw would cost 8 * DRAWS
+    private static final long BYTES_BUDGET = DRAWS * 2;
+
+    @Test
+    public void onDrawDoesNotAllocate() {
+        long[] allocated = {Long.MAX_VALUE};
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            OverlayView view = new OverlayView(context);
+            view.layout(0, 0, WIDTH, HEIGHT);
+            Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+            // Two players moving and changing gesture, as the detection screen sends them
+            List<List<HandDetection>> frames = new ArrayList<>();
+            RPSGesture[] gestures = {RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.SCISSORS, RPSGesture.UNKNOWN};
+            for (int f = 0; f < 8; f++) {
+                float shift = f * 0.02f;
+                List<HandDetection> detections = new ArrayList<>();
+                detections.add(new HandDetection(0, gestures[f % gestures.length],
+                        new RectF(0.55f + shift, 0.3f, 0.8f + shift, 0.7f), null, "Left", 0.6f + shift));
+                detections.add(new HandDetection(1, gestures[(f + 1) % gestures.length],
+                        new RectF(0.1f, 0.3f - shift, 0.35f, 0.7f - shift), null, "Right", 0.9f - shift));
+                frames.add(Collections.unmodifiableList(detections));
+            }
+
+            // The first draw of a label builds and measures it
+            for (List<HandDetection> detections : frames) {
+                view.setDetections(detections);
+                view.onDraw(canvas);
+            }
+
+            for (int run = 0; run < RUNS; run++) {
+                long before = bytesAllocated();
+                for (int i = 0; i < DRAWS; i++) {
+                    view.setDetections(frames.get(i % frames.size()));
+                    view.onDraw(canvas);
+                }
+                allocated[0] = Math.min(allocated[0], bytesAllocated() - before);
+            }
+        });
+
+        assertTrue("bytes allocated in " + DRAWS + " draws: " + allocated[0], allocated[0] < BYTES_BUDGET);
+    }
+
+    private static long bytesAllocated() {
+        return Long.parseLong(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+    }
+}
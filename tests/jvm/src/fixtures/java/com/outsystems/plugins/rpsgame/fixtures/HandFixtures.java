@@ -0,0 +1,113 @@
+package com.outsystems.plugins.rpsgame.fixtures;
+
+import com.outsystems.plugins.rpsgame.engine.GestureClassifier;
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+
+import java.util.Random;
+
+/**
+ * Builds synthetic hands in the flat landmark layout of {@link GestureClassifier}.
+ *
+ * Hands are a simple skeleton: straight fingers for extended ones, fingers folded back at the
+ * middle joint for curled ones, with a little jitter so the branches are not perfectly
+ * predictable. The classifier recognizes nearly all of them as the gesture they were built for.
+ * Shared by the tests and the benchmarks.
+ */
+public final class HandFixtures {
+
+    private static final float SEGMENT = 0.03f;
+    private static final float JITTER = 0.003f;
+
+    // Finger bits per gesture, thumb first
+    private static final int ROCK = 0;
+    private static final int PAPER = GestureClassifier.THUMB | GestureClassifier.INDEX
+            | GestureClassifier.MIDDLE | GestureClassifier.RING | GestureClassifier.PINKY;
+    private static final int SCISSORS = GestureClassifier.INDEX | GestureClassifier.MIDDLE;
+    private static final int UNKNOWN = GestureClassifier.INDEX | GestureClassifier.MIDDLE | GestureClassifier.RING;
+
+    private HandFixtures() {
+    }
+
+    public static int fingersFor(RPSGesture gesture) {
+        switch (gesture) {
+            case ROCK:
+                return ROCK;
+            case PAPER:
+                return PAPER;
+            case SCISSORS:
+                return SCISSORS;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * Fills {@code count} frames of {@code hands} hands each, spread across the frame, with
+     * gestures drawn from {@code gestures}.
+     */
+    public static float[][] frames(int count, int hands, RPSGesture[] gestures, long seed) {
+        Random random = new Random(seed);
+        float[][] frames = new float[count][Math.max(1, hands) * GestureClassifier.FLOATS_PER_HAND];
+        for (float[] frame : frames) {
+            for (int h = 0; h < hands; h++) {
+                float centerX = (h + 0.5f) / hands;
+                RPSGesture gesture = gestures[random.nextInt(gestures.length)];
+                hand(frame, h, centerX, 0.7f, fingersFor(gesture), random);
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Writes one hand with its wrist at ({@code wristX}, {@code wristY}).
+     */
+    public static void hand(float[] out, int hand, float wristX, float wristY, int fingers, Random random) {
+        int base = hand * GestureClassifier.FLOATS_PER_HAND;
+        set(out, base, 0, wristX, wristY, random);
+
+        // Thumb points sideways, the other fingers fan out upwards
+        finger(out, base, 1, wristX - 0.03f, wristY - 0.03f, -0.9f, -0.4f,
+                (fingers & GestureClassifier.THUMB) != 0, random);
+        for (int f = 0; f < 4; f++) {
+            float dirX = -0.25f + f * 0.17f;
+            boolean extended = (fingers & (GestureClassifier.INDEX << f)) != 0;
+            finger(out, base, 5 + f * 4, wristX - 0.03f + f * 0.025f, wristY - 0.09f, dirX, -1f,
+                    extended, random);
+        }
+    }
+
+    /**
+     * Writes the four landmarks of a finger starting at {@code first}. A curled finger turns
+     * back after its second joint.
+     */
+    private static void finger(float[] out, int base, int first, float x, float y,
+                               float dirX, float dirY, boolean extended, Random random) {
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+        dirX /= length;
+        dirY /= length;
+
+        set(out, base, first, x, y, random);
+        x += dirX * SEGMENT;
+        y += dirY * SEGMENT;
+        set(out, base, first + 1, x, y, random);
+        for (int joint = 2; joint < 4; joint++) {
+            if (!extended) {
+                // Rotate by 120 degrees, well below the straightness threshold
+                float rotatedX = dirX * -0.5f - dirY * 0.866f;
+                float rotatedY = dirX * 0.866f + dirY * -0.5f;
+                dirX = rotatedX;
+                dirY = rotatedY;
+            }
+            x += dirX * SEGMENT;
+            y += dirY * SEGMENT;
+            set(out, base, first + joint, x, y, random);
+        }
+    }
+
+    private static void set(float[] out, int base, int landmark, float x, float y, Random random) {
+        int i = base + landmark * GestureClassifier.FLOATS_PER_LANDMARK;
+        out[i] = x + (random.nextFloat() - 0.5f) * 2 * JITTER;
+        out[i + 1] = y + (random.nextFloat() - 0.5f) * 2 * JITTER;
+        out[i + 2] = 0f;
+    }
+}
@@ -0,0 +1,82 @@
+package com.outsystems.plugins.rpsgame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Feeds {@link FrameGapCounter} the timestamps of a 30 fps camera with frames taken out.
+ */
+public class FrameGapCounterTest {
+
+    private static final long INTERVAL = 33_333_333L;
+
+    private final FrameGapCounter counter = new FrameGapCounter();
+    private long timestamp = 5_000_000_000L;
+
+    @Test
+    public void steadyFramesLoseNothing() {
+        assertEquals(0, frames(100, 1));
+    }
+
+    @Test
+    public void countsTheFramesInEachGap() {
+        frames(10, 1);
+        assertEquals(1, frames(1, 2));
+        assertEquals(3, frames(1, 4));
+        assertEquals(0, frames(5, 1));
+        // Every other frame replaced while the analyzer is behind
+        assertEquals(20, frames(20, 2));
+    }
+
+    @Test
+    public void jitterIsNotALostFrame() {
+        frames(10, 1);
+        long total = 0;
+        for (int i = 0; i < 100; i++) {
+            timestamp += INTERVAL + (i % 2 == 0 ? 1 : -1) * INTERVAL / 5;
+            total += counter.onFrame(timestamp);
+        }
+        assertEquals(0, total);
+    }
+
+    @Test
+    public void followsALowerFrameRate() {
+        frames(10, 1);
+        // Low light, the sensor drops to 15 fps: once the window holds only the slower gaps it
+        // is the new normal
+        long missed = frames(100, 2);
+        assertEquals(FrameGapCounter.WINDOW - 1, missed);
+        assertEquals(0, frames(20, 2));
+        assertEquals(1, frames(1, 4));
+    }
+
+    @Test
+    public void stallsAndResetsAreNotLostFrames() {
+        frames(10, 1);
+        timestamp += FrameGapCounter.MAX_GAP_NANOS + 1;
+        assertEquals(0, counter.onFrame(timestamp));
+
+        frames(10, 1);
+        counter.reset();
+        timestamp += 10 * INTERVAL;
+        assertEquals(0, counter.onFrame(timestamp));
+        // The interval is learned again from the frames that follow
+        assertEquals(0, frames(5, 1));
+        assertEquals(1, frames(1, 2));
+    }
+
+    /**
+     * Delivers {@code count} frames, each {@code step} camera intervals after the last.
+     *
+     * @return the frames the counter found lost
+     */
+    private long frames(int count, int step) {
+        long missed = 0;
+        for (int i = 0; i < count; i++) {
+            timestamp += step * INTERVAL;
+            missed += counter.onFrame(timestamp);
+        }
+        return missed;
+    }
+}
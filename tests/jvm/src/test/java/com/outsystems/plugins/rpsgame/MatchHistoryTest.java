@@ -0,0 +1,35 @@
+package com.outsystems.plugins.rpsgame;
+
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Uses the process-wide {@link MatchHistory} without ever opening it, which needs a Context.
+ */
+public class MatchHistoryTest {
+
+    @Test
+    public void recordsWithoutALogAreCountedAsDropped() throws Exception {
+        MatchHistory history = MatchHistory.getInstance();
+        RPSGesture[] gestures = {RPSGesture.ROCK, RPSGesture.SCISSORS};
+        float[] confidences = {0.9f, 0.8f};
+        long dropped = history.queryStats(0).getLong("droppedRecords");
+
+        for (int i = 0; i < 3; i++) {
+            history.append(1000L + i, MatchHistory.SOURCE_FRAME, 2, Resolution.DECIDED, RPSGesture.ROCK,
+                    1, 250, gestures, confidences);
+        }
+
+        JSONObject stats = history.queryStats(5);
+        assertEquals(dropped + 3, stats.getLong("droppedRecords"));
+        assertEquals(0, stats.getLong("records"));
+        assertEquals(0, stats.getJSONArray("recent").length());
+        assertFalse(stats.has("openError"));
+    }
+}
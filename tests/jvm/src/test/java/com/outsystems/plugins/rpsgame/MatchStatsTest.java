@@ -0,0 +1,174 @@
+package com.outsystems.plugins.rpsgame;
+
+import com.outsystems.plugins.rpsgame.engine.RPSGesture;
+import com.outsystems.plugins.rpsgame.engine.Resolution;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Builds {@link MatchHistory} records by hand and checks the totals, the index and the rebuild
+ * from a log file.
+ */
+public class MatchStatsTest {
+
+    private static final RPSGesture R = RPSGesture.ROCK;
+    private static final RPSGesture P = RPSGesture.PAPER;
+    private static final RPSGesture S = RPSGesture.SCISSORS;
+    private static final RPSGesture U = RPSGesture.UNKNOWN;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void countsRoundsWinsAndGestures() {
+        MatchStats stats = new MatchStats();
+        add(stats, record(1000, MatchHistory.SOURCE_FRAME, Resolution.DECIDED, R, 0b01, 120, R, S));
+        add(stats, record(2000, MatchHistory.SOURCE_ROUND, Resolution.DRAW, U, 0, 80, P, P));
+        add(stats, record(3000, MatchHistory.SOURCE_ROUND, Resolution.UNDECIDED, U, 0, -1, S, U));
+
+        assertEquals(3, stats.records);
+        assertEquals(2, stats.decided);
+        assertEquals(1, stats.draws);
+        assertEquals(1, stats.missed);
+        assertEquals(1, stats.bySource[MatchHistory.SOURCE_FRAME]);
+        assertEquals(2, stats.bySource[MatchHistory.SOURCE_ROUND]);
+        assertEquals(2, stats.playerRounds[0]);
+        assertEquals(1, stats.playerWins[0]);
+        assertEquals(0, stats.playerWins[1]);
+        assertEquals(2, stats.gesturesThrown[P.ordinal()]);
+        assertEquals(1, stats.gesturesThrown[S.ordinal()]);
+        assertEquals(1, stats.winningGestures[R.ordinal()]);
+        assertEquals(2, stats.latencyCount);
+        assertEquals(120, stats.latencyMaxMs);
+        assertEquals(1000, stats.firstTimestampMs);
+        assertEquals(3000, stats.lastTimestampMs);
+    }
+
+    @Test
+    public void indexRoundTrips() throws Exception {
+        MatchStats stats = randomStats(500, 11);
+        ByteBuffer index = index(stats);
+
+        MatchStats read = new MatchStats();
+        assertTrue(read.read(index));
+        assertArrayEquals(index(stats).array(), index(read).array());
+        assertEquals(stats.toJson().toString(), read.toJson().toString());
+    }
+
+    @Test
+    public void rejectsAnotherIndex() {
+        ByteBuffer index = index(randomStats(10, 3));
+        index.putInt(0, MatchStats.INDEX_MAGIC + 1);
+        assertFalse(new MatchStats().read(index));
+
+        ByteBuffer truncated = index(randomStats(10, 3));
+        truncated.limit(truncated.limit() - 1);
+        assertFalse(new MatchStats().read(truncated));
+    }
+
+    @Test
+    public void rebuildMatchesTheRunningTotals() throws Exception {
+        // More records than one read buffer holds
+        int count = 2500;
+        Random random = new Random(5);
+        MatchStats running = new MatchStats();
+        File file = folder.newFile("rounds.rpsm");
+        try (FileChannel log = new RandomAccessFile(file, "rw").getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(MatchHistory.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MatchHistory.MAGIC).putInt(MatchHistory.VERSION).flip();
+            log.write(header);
+            for (int i = 0; i < count; i++) {
+                ByteBuffer record = randomRecord(i * 1000L, random);
+                log.write(record);
+                record.rewind();
+                add(running, record);
+            }
+
+            MatchStats rebuilt = new MatchStats();
+            rebuilt.add(randomRecord(0, random)); // cleared by the rebuild
+            rebuilt.rebuild(log);
+            assertEquals(count, rebuilt.records);
+            assertArrayEquals(index(running).array(), index(rebuilt).array());
+        }
+    }
+
+    @Test
+    public void emptyStatsHaveNoRates() throws Exception {
+        JSONObject json = new MatchStats().toJson();
+        assertEquals(0, json.getLong("records"));
+        assertEquals(0, json.getDouble("drawRate"), 0);
+        assertEquals(0, json.getJSONArray("players").length());
+        assertEquals(0, json.getJSONObject("decisionLatency").getDouble("meanMs"), 0);
+    }
+
+    private static MatchStats randomStats(int count, long seed) {
+        Random random = new Random(seed);
+        MatchStats stats = new MatchStats();
+        for (int i = 0; i < count; i++) {
+            add(stats, randomRecord(i * 1000L, random));
+        }
+        return stats;
+    }
+
+    private static void add(MatchStats stats, ByteBuffer record) {
+        stats.add(record);
+        assertEquals(MatchHistory.RECORD_BYTES, record.position());
+    }
+
+    private static ByteBuffer index(MatchStats stats) {
+        ByteBuffer index = ByteBuffer.allocate(MatchStats.indexBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        stats.write(index);
+        assertFalse(index.hasRemaining());
+        index.flip();
+        return index;
+    }
+
+    private static ByteBuffer randomRecord(long timestampMs, Random random) {
+        RPSGesture[] values = RPSGesture.values();
+        Resolution[] resolutions = Resolution.values();
+        RPSGesture[] gestures = new RPSGesture[2 + random.nextInt(MatchHistory.MAX_PLAYERS - 1)];
+        for (int p = 0; p < gestures.length; p++) {
+            gestures[p] = values[random.nextInt(values.length)];
+        }
+        return record(timestampMs, random.nextInt(2), resolutions[random.nextInt(resolutions.length)],
+                values[random.nextInt(values.length)], random.nextInt(1 << gestures.length),
+                random.nextInt(5) - 1, gestures);
+    }
+
+    /**
+     * Encodes one record in the {@link MatchHistory} log layout.
+     */
+    private static ByteBuffer record(long timestampMs, int source, Resolution resolution, RPSGesture winningGesture,
+                                     int winnerMask, int latencyMs, RPSGesture... gestures) {
+        ByteBuffer record = ByteBuffer.allocate(MatchHistory.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        record.putLong(timestampMs)
+                .put((byte) source)
+                .put((byte) gestures.length)
+                .put((byte) resolution.ordinal())
+                .put((byte) winningGesture.ordinal())
+                .putInt(winnerMask)
+                .putInt(latencyMs);
+        for (int p = 0; p < MatchHistory.MAX_PLAYERS; p++) {
+            record.put(MatchHistory.GESTURES_OFFSET + p, (byte) (p < gestures.length ? gestures[p] : U).ordinal());
+            record.putFloat(MatchHistory.CONFIDENCES_OFFSET + p * 4, p < gestures.length ? 0.9f : 0f);
+        }
+        record.rewind();
+        return record;
+    }
+}
@@ -0,0 +1,100 @@
+package com.outsystems.plugins.rpsgame;
+
+import com.outsystems.plugins.rpsgame.engine.FrameResult;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds {@link RoiTracker} hand boxes by hand and checks when it crops and when it goes back
+ * to the full frame.
+ */
+public class RoiTrackerTest {
+
+    private static final float[] FULL_FRAME = {0f, 0f, 1f, 1f};
+    private static final float[] CONFIDENT = {0.95f, 0.95f};
+
+    private final RoiTracker tracker = new RoiTracker();
+    private final FrameResult frame = new FrameResult(2);
+    private final float[] region = new float[4];
+
+    @Test
+    public void cropsAroundConfidentHands() {
+        hands(0.4f, 0.6f);
+        tracker.onResult(frame, CONFIDENT, false, FULL_FRAME);
+
+        assertTrue(tracker.nextRegion(region));
+        assertTrue(region[0] < 0.3f && region[2] > 0.7f);
+        assertTrue(region[1] < 0.4f && region[3] > 0.6f);
+        assertTrue((region[2] - region[0]) * (region[3] - region[1]) < 1f);
+    }
+
+    @Test
+    public void fallsBackToTheFullFrameWhenAHandScoreDrops() {
+        hands(0.4f, 0.6f);
+        tracker.onResult(frame, CONFIDENT, false, FULL_FRAME);
+        assertTrue(tracker.nextRegion(region));
+
+        // Same boxes inside the crop, but the landmarker is about to lose the second hand
+        float[] cropped = region.clone();
+        tracker.onResult(frame, new float[] {0.95f, RoiTracker.DEFAULT_MIN_HAND_SCORE - 0.05f}, true, cropped);
+        assertFalse(tracker.nextRegion(region));
+        assertArrayEquals(FULL_FRAME, region, 0f);
+
+        // Confident again, cropping resumes
+        tracker.onResult(frame, CONFIDENT, false, FULL_FRAME);
+        assertTrue(tracker.nextRegion(region));
+    }
+
+    @Test
+    public void handsAtTheMinimumScoreAreStillTracked() {
+        hands(0.4f, 0.6f);
+        float[] scores = {RoiTracker.DEFAULT_MIN_HAND_SCORE, RoiTracker.DEFAULT_MIN_HAND_SCORE};
+        tracker.onResult(frame, scores, false, FULL_FRAME);
+        assertTrue(tracker.nextRegion(region));
+    }
+
+    @Test
+    public void fallsBackToTheFullFrameWhenAHandIsLost() {
+        hands(0.4f, 0.6f);
+        tracker.onResult(frame, CONFIDENT, false, FULL_FRAME);
+        assertTrue(tracker.nextRegion(region));
+
+        frame.clear();
+        tracker.onResult(frame, CONFIDENT, true, region.clone());
+        assertFalse(tracker.nextRegion(region));
+    }
+
+    @Test
+    public void redetectsTheFullFramePeriodically() {
+        hands(0.4f, 0.6f);
+        int cropped = 0;
+        for (int i = 0; i <= RoiTracker.DEFAULT_REDETECT_INTERVAL; i++) {
+            tracker.onResult(frame, CONFIDENT, false, FULL_FRAME);
+            if (tracker.nextRegion(region)) {
+                cropped++;
+            }
+        }
+        assertEquals(RoiTracker.DEFAULT_REDETECT_INTERVAL, cropped);
+        assertArrayEquals(FULL_FRAME, region, 0f);
+    }
+
+    /**
+     * Puts two small hands in the middle of the frame, centered at the given x positions.
+     */
+    private void hands(float... centersX) {
+        frame.clear();
+        frame.handCount = centersX.length;
+        for (int p = 0; p < centersX.length; p++) {
+            frame.playerHand[p] = p;
+            frame.boxes[p * 4] = centersX[p] - 0.05f;
+            frame.boxes[p * 4 + 1] = 0.45f;
+            frame.boxes[p * 4 + 2] = centersX[p] + 0.05f;
+            frame.boxes[p * 4 + 3] = 0.55f;
+        }
+    }
+}
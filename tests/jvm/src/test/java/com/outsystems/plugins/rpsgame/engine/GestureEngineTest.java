@@ -0,0 +1,112 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import com.outsystems.plugins.rpsgame.fixtures.HandFixtures;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs frames of {@link HandFixtures} hands through a two-player engine with the default
+ * stabilizer. Hands are placed by the x of their wrist in the image, before the preview is
+ * mirrored.
+ */
+public class GestureEngineTest {
+
+    private static final float LEFT = 0.2f;
+    private static final float RIGHT = 0.7f;
+
+    private final GestureEngine engine = new GestureEngine();
+    private final FrameResult result = new FrameResult(GestureEngine.DEFAULT_MAX_PLAYERS);
+    private final float[] landmarks = new float[3 * GestureClassifier.FLOATS_PER_HAND];
+    private final Random random = new Random(7);
+
+    @Test
+    public void playersAreNumberedLeftToRightOnThePreview() {
+        // The preview is mirrored, the hand on the right of the image is player 1
+        frame(new float[]{LEFT, RIGHT}, RPSGesture.ROCK, RPSGesture.PAPER);
+
+        assertEquals(2, result.handCount);
+        assertEquals(1, result.playerHand[0]);
+        assertEquals(0, result.playerHand[1]);
+        assertEquals(RPSGesture.PAPER, result.gestures[0]);
+        assertEquals(RPSGesture.ROCK, result.gestures[1]);
+        assertTrue(result.boxes[0] > result.boxes[4]);
+    }
+
+    @Test
+    public void outcomeWaitsForStableGestures() {
+        int enterFrames = (int) Math.ceil(GestureStabilizer.DEFAULT_ENTER_RATIO * GestureStabilizer.DEFAULT_WINDOW_SIZE);
+        for (int i = 1; i < enterFrames; i++) {
+            frame(new float[]{LEFT, RIGHT}, RPSGesture.ROCK, RPSGesture.PAPER);
+            assertEquals("frame " + i, RPSGesture.UNKNOWN, result.stableGestures[0]);
+            assertEquals("frame " + i, Outcome.NONE, result.outcome);
+        }
+
+        frame(new float[]{LEFT, RIGHT}, RPSGesture.ROCK, RPSGesture.PAPER);
+        assertEquals(RPSGesture.PAPER, result.stableGestures[0]);
+        assertEquals(RPSGesture.ROCK, result.stableGestures[1]);
+        assertEquals(Outcome.PLAYER1_WINS, result.outcome);
+    }
+
+    @Test
+    public void missingPlayerDecidesNothing() {
+        for (int i = 0; i < GestureStabilizer.DEFAULT_WINDOW_SIZE; i++) {
+            frame(new float[]{LEFT, RIGHT}, RPSGesture.ROCK, RPSGesture.PAPER);
+        }
+        assertEquals(Outcome.PLAYER1_WINS, result.outcome);
+
+        frame(new float[]{RIGHT}, RPSGesture.PAPER);
+        assertEquals(1, result.handCount);
+        assertEquals(-1, result.playerHand[1]);
+        assertEquals(RPSGesture.UNKNOWN, result.gestures[1]);
+        assertEquals(Outcome.NONE, result.outcome);
+    }
+
+    @Test
+    public void roundIsResolvedOnlyWithEveryPlayerInView() {
+        for (int i = 0; i < GestureStabilizer.DEFAULT_WINDOW_SIZE; i++) {
+            frame(new float[]{LEFT, RIGHT}, RPSGesture.ROCK, RPSGesture.PAPER);
+        }
+        assertEquals(Resolution.DECIDED, result.resolution.resolution);
+        assertEquals(RPSGesture.PAPER, result.resolution.winningGesture);
+        assertEquals(0b01, result.resolution.winnerMask);
+
+        frame(new float[]{RIGHT}, RPSGesture.PAPER);
+        assertEquals(Resolution.UNDECIDED, result.resolution.resolution);
+    }
+
+    @Test
+    public void handsBeyondThePlayerCountAreIgnored() {
+        frame(new float[]{0.1f, 0.4f, 0.7f}, RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.PAPER);
+        assertEquals(2, result.handCount);
+        assertEquals(RPSGesture.PAPER, result.gestures[0]);
+        assertEquals(RPSGesture.ROCK, result.gestures[1]);
+    }
+
+    @Test
+    public void resetForgetsTheStableGestures() {
+        for (int i = 0; i < GestureStabilizer.DEFAULT_WINDOW_SIZE; i++) {
+            frame(new float[]{LEFT, RIGHT}, RPSGesture.PAPER, RPSGesture.PAPER);
+        }
+        assertEquals(Outcome.TIE, result.outcome);
+
+        engine.reset();
+        frame(new float[]{LEFT, RIGHT}, RPSGesture.PAPER, RPSGesture.PAPER);
+        assertEquals(RPSGesture.UNKNOWN, result.stableGestures[0]);
+        assertEquals(Outcome.NONE, result.outcome);
+    }
+
+    /**
+     * Processes one frame with a hand at each wrist x, showing the gesture at the same index.
+     */
+    private void frame(float[] wristX, RPSGesture... gestures) {
+        for (int h = 0; h < wristX.length; h++) {
+            HandFixtures.hand(landmarks, h, wristX[h], 0.7f, HandFixtures.fingersFor(gestures[h]), random);
+        }
+        engine.process(landmarks, wristX.length, result);
+    }
+}
@@ -0,0 +1,154 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import com.outsystems.plugins.rpsgame.fixtures.HandFixtures;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds hand-written feature vectors straight into {@link GestureModel#predict}, and checks the
+ * features extracted from {@link HandFixtures} hands.
+ */
+public class GestureModelTest {
+
+    // bend: thumb, index, middle, ring, pinky | tip distance: same order | spread | facing
+    private static final float[] FIST = {
+            -0.2f, 0.5f, 0.45f, 0.4f, 0.3f, /**/ 0.5f, 0.95f, 0.8f, 0.85f, 0.85f, /**/ 0.1f, /**/ 0.9f
+    };
+    private static final float[] OPEN_HAND = {
+            -0.95f, -0.9f, -1f, -0.95f, -0.9f, /**/ 1.1f, 1.7f, 1.9f, 1.8f, 1.45f, /**/ 0.4f, /**/ 0.9f
+    };
+    private static final float[] V_SIGN = {
+            -0.4f, -0.9f, -1f, 0.45f, 0.35f, /**/ 0.55f, 1.8f, 1.8f, 0.9f, 0.75f, /**/ 0.65f, /**/ 0.9f
+    };
+
+    private final GestureClassifier.Result result = new GestureClassifier.Result();
+
+    @Test
+    public void predictsEachGestureFromATypicalVector() {
+        assertPrediction(FIST, RPSGesture.ROCK);
+        assertPrediction(OPEN_HAND, RPSGesture.PAPER);
+        assertPrediction(V_SIGN, RPSGesture.SCISSORS);
+    }
+
+    @Test
+    public void vectorFarFromEveryGestureIsBackground() {
+        // Fingers half bent and tips far out: closest to paper, but not close to anything
+        float[] features = {0f, 0f, 0f, 0f, 0f, 2.5f, 3f, 3f, 3f, 3f, 1.5f, 0.9f};
+
+        GestureModel.predict(features, result);
+        assertEquals(RPSGesture.UNKNOWN, result.gesture);
+        assertTrue("confidence " + result.confidence, result.confidence < 0.01f);
+    }
+
+    @Test
+    public void vectorBetweenTwoGesturesIsRejected() {
+        // Ring and pinky unfolding turns scissors into paper; find where both are equally close
+        float low = 0f;
+        float high = 1f;
+        for (int i = 0; i < 30; i++) {
+            float middle = (low + high) / 2;
+            GestureModel.predict(mix(OPEN_HAND, V_SIGN, middle), result);
+            // classDistances follow the model's class order: rock, paper, scissors
+            if (result.classDistances[1] < result.classDistances[2]) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+
+        GestureModel.predict(mix(OPEN_HAND, V_SIGN, low), result);
+        assertEquals(RPSGesture.UNKNOWN, result.gesture);
+        assertTrue("confidence " + result.confidence, result.confidence < GestureModel.MIN_CONFIDENCE);
+        assertTrue("confidence " + result.confidence, result.confidence > 0.45f);
+    }
+
+    @Test
+    public void gestureIsReportedFromTheMinimumConfidence() {
+        Random random = new Random(3);
+        float[] features = new float[GestureModel.FEATURE_COUNT];
+        for (int i = 0; i < 10_000; i++) {
+            float[] a = pick(random);
+            float[] b = pick(random);
+            float weight = random.nextFloat();
+            for (int f = 0; f < features.length; f++) {
+                features[f] = a[f] * weight + b[f] * (1 - weight) + (random.nextFloat() - 0.5f) * 0.4f;
+            }
+
+            GestureModel.predict(features, result);
+            assertTrue("confidence " + result.confidence, result.confidence > 0f && result.confidence <= 1f);
+            assertEquals("vector " + i, result.confidence >= GestureModel.MIN_CONFIDENCE,
+                    result.gesture != RPSGesture.UNKNOWN);
+        }
+    }
+
+    @Test
+    public void palmOrientationDoesNotChangeThePrediction() {
+        GestureModel.predict(V_SIGN, result);
+        float confidence = result.confidence;
+
+        float[] edgeOn = V_SIGN.clone();
+        edgeOn[GestureModel.PALM_FACING] = 0f;
+        GestureModel.predict(edgeOn, result);
+        assertEquals(RPSGesture.SCISSORS, result.gesture);
+        assertEquals(confidence, result.confidence, 0f);
+    }
+
+    @Test
+    public void extractsBendsAndDistancesFromAHand() {
+        float[] landmarks = new float[GestureClassifier.FLOATS_PER_HAND];
+        float[] features = new float[GestureModel.FEATURE_COUNT];
+        HandFixtures.hand(landmarks, 0, 0.5f, 0.7f, HandFixtures.fingersFor(RPSGesture.SCISSORS), new Random(7));
+
+        assertTrue(GestureModel.extractFeatures(landmarks, 0, features));
+        // Index and middle straight, ring and pinky folded back
+        assertTrue(features[GestureModel.BEND + 1] < -0.9f);
+        assertTrue(features[GestureModel.BEND + 2] < -0.9f);
+        assertTrue(features[GestureModel.BEND + 3] > 0f);
+        assertTrue(features[GestureModel.BEND + 4] > 0f);
+        assertTrue(features[GestureModel.TIP_DISTANCE + 1] > features[GestureModel.TIP_DISTANCE + 3]);
+        // A flat fixture hand faces the camera
+        assertEquals(1f, features[GestureModel.PALM_FACING], 1e-3f);
+    }
+
+    @Test
+    public void degenerateHandHasNoFeatures() {
+        float[] features = new float[GestureModel.FEATURE_COUNT];
+        features[0] = 1f;
+
+        assertFalse(GestureModel.extractFeatures(new float[GestureClassifier.FLOATS_PER_HAND], 0, features));
+        for (float feature : features) {
+            assertEquals(0f, feature, 0f);
+        }
+    }
+
+    private void assertPrediction(float[] features, RPSGesture expected) {
+        GestureModel.predict(features, result);
+        assertEquals(expected, result.gesture);
+        assertTrue(expected + " confidence " + result.confidence, result.confidence > 0.9f);
+    }
+
+    private static float[] pick(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return FIST;
+            case 1:
+                return OPEN_HAND;
+            default:
+                return V_SIGN;
+        }
+    }
+
+    private static float[] mix(float[] a, float[] b, float weightOfA) {
+        float[] out = new float[a.length];
+        for (int i = 0; i < a.length; i++) {
+            out[i] = a[i] * weightOfA + b[i] * (1 - weightOfA);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,153 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds gesture sequences through a default stabilizer (window 8, enter 0.6, exit 0.35).
+ *
+ * A sequence is one character per frame: R, P and S for a classified gesture, ? for a hand
+ * the classifier was not sure of and _ for a frame without the player's hand.
+ */
+public class GestureStabilizerTest {
+
+    private static final float CONFIDENCE = 0.8f;
+
+    @Test
+    public void entersOnceTheGestureHoldsTheEnterRatio() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+
+        // 4 of 8 frames is below the 0.6 enter ratio, 5 of 8 reaches it
+        feed(stabilizer, "RRRR");
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+        assertTrue(stabilizer.update(RPSGesture.ROCK, CONFIDENCE));
+        assertEquals(RPSGesture.ROCK, stabilizer.getStableGesture());
+    }
+
+    @Test
+    public void holdsUntilTheShareFallsBelowTheExitRatio() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        feed(stabilizer, "RRRRRRRR");
+
+        // 4 of 8 frames still hold the 0.35 exit ratio, paper takes over at 5 of 8
+        feed(stabilizer, "PPPP");
+        assertEquals(RPSGesture.ROCK, stabilizer.getStableGesture());
+        feed(stabilizer, "P");
+        assertEquals(RPSGesture.PAPER, stabilizer.getStableGesture());
+    }
+
+    @Test
+    public void dropsToUnknownBetweenEnterAndExit() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        feed(stabilizer, "SSSSSSSS");
+
+        // Neither gesture reaches the enter ratio, the stable one falls below the exit ratio
+        feed(stabilizer, "RP?RPR");
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+    }
+
+    @Test
+    public void rejectsFlicker() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        feed(stabilizer, "RRRRRRRR");
+
+        // Single misread frames, as seen while a hand moves, never flip the result
+        String recorded = "RRPRRSRR?RRPRRRSRPRRR";
+        for (int i = 0; i < recorded.length(); i++) {
+            assertFalse("frame " + i, stabilizer.update(gesture(recorded.charAt(i)), confidence(recorded.charAt(i))));
+            assertEquals(RPSGesture.ROCK, stabilizer.getStableGesture());
+        }
+    }
+
+    @Test
+    public void alternatingGesturesNeverStabilize() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        feed(stabilizer, "RPRPRPRPRPRPRPRP");
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+    }
+
+    @Test
+    public void steadyLowConfidenceGestureStabilizes() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        for (int i = 0; i < 50; i++) {
+            stabilizer.update(RPSGesture.ROCK, 0.55f);
+        }
+        assertEquals(RPSGesture.ROCK, stabilizer.getStableGesture());
+        assertEquals(1f, stabilizer.getStableShare(), 1e-6f);
+    }
+
+    @Test
+    public void gestureBelowMinimumConfidenceDoesNotEnter() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        for (int i = 0; i < 50; i++) {
+            stabilizer.update(RPSGesture.ROCK, GestureStabilizer.DEFAULT_MIN_CONFIDENCE - 0.1f);
+        }
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+    }
+
+    @Test
+    public void missingHandAgesTheWindowOut() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        feed(stabilizer, "PPPPPPPP");
+
+        feed(stabilizer, "____");
+        assertEquals(RPSGesture.PAPER, stabilizer.getStableGesture());
+        feed(stabilizer, "_");
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+
+        // Coming back takes a fresh majority
+        feed(stabilizer, "PPPP");
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+        feed(stabilizer, "P");
+        assertEquals(RPSGesture.PAPER, stabilizer.getStableGesture());
+    }
+
+    @Test
+    public void resetForgetsTheWindow() {
+        GestureStabilizer stabilizer = new GestureStabilizer();
+        feed(stabilizer, "SSSSSSSS");
+        stabilizer.reset();
+
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+        feed(stabilizer, "RRRR");
+        assertEquals(RPSGesture.UNKNOWN, stabilizer.getStableGesture());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsExitAboveEnter() {
+        new GestureStabilizer(8, 0.4f, 0.5f);
+    }
+
+    private static void feed(GestureStabilizer stabilizer, String frames) {
+        for (int i = 0; i < frames.length(); i++) {
+            stabilizer.update(gesture(frames.charAt(i)), confidence(frames.charAt(i)));
+        }
+    }
+
+    private static RPSGesture gesture(char frame) {
+        switch (frame) {
+            case 'R':
+                return RPSGesture.ROCK;
+            case 'P':
+                return RPSGesture.PAPER;
+            case 'S':
+                return RPSGesture.SCISSORS;
+            default:
+                return RPSGesture.UNKNOWN;
+        }
+    }
+
+    private static float confidence(char frame) {
+        switch (frame) {
+            case '_':
+                return 0f;
+            case '?':
+                return 0.3f;
+            default:
+                return CONFIDENCE;
+        }
+    }
+}
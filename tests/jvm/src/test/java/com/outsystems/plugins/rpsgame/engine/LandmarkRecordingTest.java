@@ -0,0 +1,183 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import com.outsystems.plugins.rpsgame.fixtures.HandFixtures;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LandmarkRecordingTest {
+
+    private static final int FLOATS = GestureClassifier.FLOATS_PER_HAND;
+    private static final RPSGesture[] GESTURES = {RPSGesture.ROCK, RPSGesture.PAPER, RPSGesture.SCISSORS};
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysEveryRecordedFrame() throws IOException {
+        File file = folder.newFile("session.rpsl");
+        float[][] frames = HandFixtures.frames(2000, 2, GESTURES, 3);
+        byte[] handedness = {LandmarkRecording.HANDEDNESS_LEFT, LandmarkRecording.HANDEDNESS_RIGHT};
+        float[] scores = {0.9f, 0.8f};
+
+        // The recorder drops frames rather than block when the writer falls behind
+        List<Integer> recorded = new ArrayList<>();
+        LandmarkRecorder recorder = new LandmarkRecorder(file);
+        for (int i = 0; i < frames.length; i++) {
+            if (recorder.record(i * 33L, frames[i], 2, handedness, scores)) {
+                recorded.add(i);
+            }
+        }
+        recorder.close();
+        assertEquals(recorded.size(), recorder.getRecordedFrames());
+        assertEquals(frames.length - recorded.size(), recorder.getDroppedFrames());
+
+        LandmarkRecording.Frame frame = new LandmarkRecording.Frame();
+        try (LandmarkReplay replay = new LandmarkReplay(file)) {
+            for (int i : recorded) {
+                assertTrue(replay.next(frame));
+                assertEquals(i * 33L, frame.timestampMs);
+                assertEquals(2, frame.handCount);
+                assertArrayEquals(frames[i], slice(frame.landmarks, 2), 0f);
+                assertEquals(LandmarkRecording.HANDEDNESS_LEFT, frame.handedness[0]);
+                assertEquals(LandmarkRecording.HANDEDNESS_RIGHT, frame.handedness[1]);
+                assertEquals(0.8f, frame.handednessScores[1], 0f);
+            }
+            assertFalse(replay.next(frame));
+        }
+    }
+
+    @Test
+    public void missingHandednessIsStoredAsUnknown() throws IOException {
+        File file = folder.newFile("session.rpsl");
+        LandmarkRecorder recorder = new LandmarkRecorder(file);
+        assertTrue(recorder.record(5, HandFixtures.frames(1, 1, GESTURES, 1)[0], 1, null, null));
+        assertTrue(recorder.record(6, new float[FLOATS], 0, null, null));
+        recorder.close();
+
+        LandmarkRecording.Frame frame = new LandmarkRecording.Frame();
+        try (LandmarkReplay replay = new LandmarkReplay(file)) {
+            assertTrue(replay.next(frame));
+            assertEquals(LandmarkRecording.HANDEDNESS_UNKNOWN, frame.handedness[0]);
+            assertEquals(0f, frame.handednessScores[0], 0f);
+            assertTrue(replay.next(frame));
+            assertEquals(0, frame.handCount);
+            assertFalse(replay.next(frame));
+        }
+    }
+
+    @Test
+    public void rewindAndReplayFeedTheEngine() throws IOException {
+        File file = folder.newFile("session.rpsl");
+        float[][] frames = HandFixtures.frames(50, 2, GESTURES, 5);
+        LandmarkRecorder recorder = new LandmarkRecorder(file);
+        for (int i = 0; i < frames.length; i++) {
+            assertTrue(recorder.record(i, frames[i], 2, null, null));
+        }
+        recorder.close();
+
+        GestureEngine engine = new GestureEngine();
+        FrameResult result = new FrameResult(GestureEngine.DEFAULT_MAX_PLAYERS);
+        LandmarkRecording.Frame frame = new LandmarkRecording.Frame();
+        try (LandmarkReplay replay = new LandmarkReplay(file)) {
+            assertEquals(frames.length, replay.replay(engine, result, frame, null));
+            replay.rewind();
+            assertTrue(replay.next(frame));
+            assertEquals(0, frame.timestampMs);
+        }
+    }
+
+    @Test
+    public void stopsAtATruncatedRecord() throws IOException {
+        File file = folder.newFile("session.rpsl");
+        float[][] frames = HandFixtures.frames(2, 1, GESTURES, 7);
+        LandmarkRecorder recorder = new LandmarkRecorder(file);
+        recorder.record(1, frames[0], 1, null, null);
+        recorder.record(2, frames[1], 1, null, null);
+        recorder.close();
+
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+
+        LandmarkRecording.Frame frame = new LandmarkRecording.Frame();
+        try (LandmarkReplay replay = new LandmarkReplay(file)) {
+            assertTrue(replay.next(frame));
+            assertFalse(replay.next(frame));
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        File file = folder.newFile("other.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        }
+        try {
+            new LandmarkReplay(file).close();
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // Wrong magic number
+        }
+    }
+
+    @Test
+    public void closeWhileRecordingKeepsEveryRecordedFrameWhole() throws Exception {
+        float[][] frames = HandFixtures.frames(64, 2, GESTURES, 9);
+        for (int run = 0; run < 20; run++) {
+            File file = folder.newFile("session-" + run + ".rpsl");
+            LandmarkRecorder recorder = new LandmarkRecorder(file);
+            AtomicBoolean closed = new AtomicBoolean();
+            // Keeps recording across the close, the frames after it must be rejected
+            Thread producer = new Thread(() -> {
+                for (int i = 0; !closed.get(); i++) {
+                    recorder.record(i, frames[i % frames.length], 2, null, null);
+                }
+            });
+            producer.start();
+            Thread.sleep(run % 5);
+            recorder.close();
+            closed.set(true);
+            producer.join();
+
+            LandmarkRecording.Frame frame = new LandmarkRecording.Frame();
+            long replayed = 0;
+            try (LandmarkReplay replay = new LandmarkReplay(file)) {
+                while (replay.next(frame)) {
+                    assertEquals(2, frame.handCount);
+                    assertArrayEquals(frames[(int) (frame.timestampMs % frames.length)], slice(frame.landmarks, 2), 0f);
+                    replayed++;
+                }
+            }
+            assertEquals(recorder.getRecordedFrames(), replayed);
+        }
+    }
+
+    @Test
+    public void recordingAfterCloseIsRejected() throws IOException {
+        LandmarkRecorder recorder = new LandmarkRecorder(folder.newFile("session.rpsl"));
+        recorder.close();
+        assertFalse(recorder.record(1, new float[FLOATS], 1, null, null));
+    }
+
+    private static float[] slice(float[] landmarks, int hands) {
+        float[] out = new float[hands * FLOATS];
+        System.arraycopy(landmarks, 0, out, 0, out.length);
+        return out;
+    }
+}
@@ -0,0 +1,37 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OutcomeTest {
+
+    private static final RPSGesture R = RPSGesture.ROCK;
+    private static final RPSGesture P = RPSGesture.PAPER;
+    private static final RPSGesture S = RPSGesture.SCISSORS;
+    private static final RPSGesture U = RPSGesture.UNKNOWN;
+
+    @Test
+    public void twoPlayerOutcomes() {
+        assertEquals(Outcome.PLAYER1_WINS, Outcome.of(R, S));
+        assertEquals(Outcome.PLAYER2_WINS, Outcome.of(R, P));
+        assertEquals(Outcome.PLAYER1_WINS, Outcome.of(P, R));
+        assertEquals(Outcome.PLAYER2_WINS, Outcome.of(P, S));
+        assertEquals(Outcome.PLAYER1_WINS, Outcome.of(S, P));
+        assertEquals(Outcome.PLAYER2_WINS, Outcome.of(S, R));
+    }
+
+    @Test
+    public void sameGestureIsATie() {
+        assertEquals(Outcome.TIE, Outcome.of(R, R));
+        assertEquals(Outcome.TIE, Outcome.of(P, P));
+        assertEquals(Outcome.TIE, Outcome.of(S, S));
+    }
+
+    @Test
+    public void unknownGestureDecidesNothing() {
+        assertEquals(Outcome.NONE, Outcome.of(U, R));
+        assertEquals(Outcome.NONE, Outcome.of(S, U));
+        assertEquals(Outcome.NONE, Outcome.of(U, U));
+    }
+}
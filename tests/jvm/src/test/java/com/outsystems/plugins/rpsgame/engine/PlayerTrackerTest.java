@@ -0,0 +1,144 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Moves square hands of a fixed size around a two-slot tracker. Positions are the hand
+ * centers in normalized image coordinates, before the preview is mirrored.
+ */
+public class PlayerTrackerTest {
+
+    private static final float HALF_SIZE = 0.08f;
+
+    private final PlayerTracker tracker = new PlayerTracker(2);
+    private final float[] boxes = new float[8];
+    private final float[] centers = new float[4];
+    private final int[] slots = new int[2];
+
+    @Test
+    public void newPlayersAreNumberedLeftToRightOnThePreview() {
+        // The preview is mirrored, the hand on the right of the image is on the left of the screen
+        update(0.2f, 0.5f, 0.8f, 0.5f);
+        assertArrayEquals(new int[]{1, 0}, slots);
+        assertTrue(tracker.isNewTrack(0));
+        assertTrue(tracker.isNewTrack(1));
+
+        update(0.21f, 0.5f, 0.79f, 0.5f);
+        assertArrayEquals(new int[]{1, 0}, slots);
+        assertFalse(tracker.isNewTrack(0));
+        assertFalse(tracker.isNewTrack(1));
+    }
+
+    @Test
+    public void playersKeepTheirSlotsWhateverTheHandOrder() {
+        update(0.3f, 0.5f, 0.7f, 0.5f);
+        int left = slots[0];
+        int right = slots[1];
+
+        // The landmarker lists the hands in no particular order
+        update(0.71f, 0.51f, 0.31f, 0.49f);
+        assertEquals(right, slots[0]);
+        assertEquals(left, slots[1]);
+    }
+
+    @Test
+    public void crossingHandsKeepTheirPlayers() {
+        update(0.3f, 0.5f, 0.7f, 0.5f);
+        int fromLeft = slots[0];
+        int fromRight = slots[1];
+
+        // Both hands move steadily across, through each other
+        for (int i = 1; i <= 8; i++) {
+            float step = i * 0.05f;
+            update(0.3f + step, 0.5f, 0.7f - step, 0.5f);
+            assertEquals("frame " + i, fromLeft, slots[0]);
+            assertEquals("frame " + i, fromRight, slots[1]);
+        }
+    }
+
+    @Test
+    public void lostHandCoastsAndComesBackAsTheSamePlayer() {
+        update(0.3f, 0.5f, 0.7f, 0.5f);
+        int lost = slots[1];
+
+        for (int i = 1; i <= 3; i++) {
+            update(0.3f, 0.5f);
+            assertTrue(tracker.isTracked(lost));
+            assertEquals(i, tracker.getMissedFrames(lost));
+        }
+
+        update(0.3f, 0.5f, 0.69f, 0.5f);
+        assertEquals(lost, slots[1]);
+        assertFalse(tracker.isNewTrack(lost));
+        assertEquals(0, tracker.getMissedFrames(lost));
+    }
+
+    @Test
+    public void handLostForTooLongIsANewPlayer() {
+        update(0.3f, 0.5f, 0.7f, 0.5f);
+        int lost = slots[1];
+
+        for (int i = 0; i <= PlayerTracker.DEFAULT_MAX_COAST_FRAMES; i++) {
+            update(0.3f, 0.5f);
+        }
+        assertFalse(tracker.isTracked(lost));
+
+        update(0.3f, 0.5f, 0.7f, 0.5f);
+        assertEquals(lost, slots[1]);
+        assertTrue(tracker.isNewTrack(lost));
+    }
+
+    @Test
+    public void handFarFromItsTrackIsANewPlayer() {
+        update(0.2f, 0.3f);
+        int first = slots[0];
+
+        // Too far to be the same hand; the old track coasts in the other slot
+        update(0.8f, 0.7f);
+        assertTrue(slots[0] != first);
+        assertTrue(tracker.isNewTrack(slots[0]));
+        assertTrue(tracker.isTracked(first));
+    }
+
+    @Test
+    public void resetForgetsThePlayers() {
+        update(0.3f, 0.5f, 0.7f, 0.5f);
+        tracker.reset();
+        assertFalse(tracker.isTracked(0));
+        assertFalse(tracker.isTracked(1));
+
+        update(0.3f, 0.5f, 0.7f, 0.5f);
+        assertTrue(tracker.isNewTrack(0));
+        assertTrue(tracker.isNewTrack(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMoreHandsThanSlots() {
+        new PlayerTracker(1).update(new float[8], new float[4], 2, new int[2]);
+    }
+
+    /**
+     * Updates the tracker with one hand per x, y pair.
+     */
+    private void update(float... positions) {
+        int hands = positions.length / 2;
+        for (int h = 0; h < hands; h++) {
+            setHand(h, positions[h * 2], positions[h * 2 + 1]);
+        }
+        tracker.update(boxes, centers, hands, slots);
+    }
+
+    private void setHand(int hand, float x, float y) {
+        boxes[hand * 4] = x - HALF_SIZE;
+        boxes[hand * 4 + 1] = y - HALF_SIZE;
+        boxes[hand * 4 + 2] = x + HALF_SIZE;
+        boxes[hand * 4 + 3] = y + HALF_SIZE;
+        centers[hand * 2] = x;
+        centers[hand * 2 + 1] = y;
+    }
+}
@@ -0,0 +1,96 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives a two-player, best-of-3 controller with the default timing and hand-made frames.
+ */
+public class RoundControllerTest {
+
+    private static final long SHOOT_MS = (RoundController.COUNTDOWN_WORDS.length - 1) * RoundController.DEFAULT_BEAT_MS;
+
+    private final RoundController controller = new RoundController();
+    private final FrameResult frame = new FrameResult(GestureEngine.DEFAULT_MAX_PLAYERS);
+
+    @Test
+    public void roundIsDecidedFromTheThrowsAroundShoot() {
+        playRound(0, RPSGesture.ROCK, RPSGesture.SCISSORS);
+
+        assertEquals(RoundController.Phase.RESULT, controller.getPhase());
+        assertEquals(1, controller.getRound());
+        assertEquals(1, controller.getWins(0));
+        assertEquals(RPSGesture.ROCK, controller.getThrow(0));
+        assertEquals(RPSGesture.SCISSORS, controller.getThrow(1));
+    }
+
+    @Test
+    public void cancelledCountdownKeepsTheScore() {
+        playRound(0, RPSGesture.PAPER, RPSGesture.ROCK);
+        long next = 10_000;
+        assertEquals(-1, controller.advance(next));
+        assertEquals(RoundController.Phase.WAITING, controller.getPhase());
+
+        assertTrue(controller.onFrame(next, frame(RPSGesture.ROCK, RPSGesture.ROCK)));
+        controller.advance(next + RoundController.DEFAULT_BEAT_MS);
+        assertEquals(RoundController.Phase.COUNTDOWN, controller.getPhase());
+
+        controller.cancelRound();
+        assertEquals(RoundController.Phase.WAITING, controller.getPhase());
+        assertEquals(-1, controller.getBeat());
+        assertEquals(1, controller.getRound());
+        assertEquals(1, controller.getWins(0));
+
+        // The next frame with every player starts the countdown over
+        assertTrue(controller.onFrame(next + 5000, frame(RPSGesture.ROCK, RPSGesture.ROCK)));
+        controller.advance(next + 5000);
+        assertEquals(RoundController.Phase.COUNTDOWN, controller.getPhase());
+        assertEquals(0, controller.getBeat());
+    }
+
+    @Test
+    public void cancelLeavesADecidedRoundAlone() {
+        playRound(0, RPSGesture.SCISSORS, RPSGesture.PAPER);
+
+        controller.cancelRound();
+        assertEquals(RoundController.Phase.RESULT, controller.getPhase());
+        assertEquals(1, controller.getWins(0));
+    }
+
+    @Test
+    public void missingPlayerDoesNotStartARound() {
+        frame(RPSGesture.ROCK, RPSGesture.ROCK);
+        frame.handCount = 1;
+        frame.playerHand[1] = -1;
+
+        assertFalse(controller.onFrame(0, frame));
+        assertEquals(RoundController.Phase.WAITING, controller.getPhase());
+    }
+
+    /**
+     * Starts a countdown at {@code startMs}, shows both throws through the capture window and
+     * moves past the decision.
+     */
+    private void playRound(long startMs, RPSGesture player1, RPSGesture player2) {
+        assertTrue(controller.onFrame(startMs, frame(player1, player2)));
+        for (long t = SHOOT_MS - 100; t <= SHOOT_MS + 300; t += 100) {
+            controller.onFrame(startMs + t, frame(player1, player2));
+        }
+        controller.advance(startMs + SHOOT_MS + 1000);
+    }
+
+    private FrameResult frame(RPSGesture player1, RPSGesture player2) {
+        frame.clear();
+        frame.handCount = 2;
+        frame.playerHand[0] = 0;
+        frame.playerHand[1] = 1;
+        frame.gestures[0] = player1;
+        frame.gestures[1] = player2;
+        frame.confidences[0] = 1f;
+        frame.confidences[1] = 1f;
+        return frame;
+    }
+}
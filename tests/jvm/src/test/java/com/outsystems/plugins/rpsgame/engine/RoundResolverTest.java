@@ -0,0 +1,98 @@
+package com.outsystems.plugins.rpsgame.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RoundResolverTest {
+
+    private static final RPSGesture R = RPSGesture.ROCK;
+    private static final RPSGesture P = RPSGesture.PAPER;
+    private static final RPSGesture S = RPSGesture.SCISSORS;
+    private static final RPSGesture U = RPSGesture.UNKNOWN;
+
+    @Test
+    public void everyGestureBeatsExactlyOneOther() {
+        assertTrue(RoundResolver.beats(R, S));
+        assertTrue(RoundResolver.beats(P, R));
+        assertTrue(RoundResolver.beats(S, P));
+
+        RPSGesture[] playable = {R, P, S};
+        for (RPSGesture a : playable) {
+            int beaten = 0;
+            for (RPSGesture b : playable) {
+                if (RoundResolver.beats(a, b)) {
+                    beaten++;
+                    assertFalse(a + " and " + b, RoundResolver.beats(b, a));
+                }
+            }
+            assertEquals(a.toString(), 1, beaten);
+            assertFalse(RoundResolver.beats(a, U));
+            assertFalse(RoundResolver.beats(U, a));
+        }
+    }
+
+    @Test
+    public void undecidedWithoutTwoKnownGestures() {
+        RoundResolver.Result result = new RoundResolver.Result();
+
+        RoundResolver.resolve(new RPSGesture[]{R}, 1, result);
+        assertEquals(Resolution.UNDECIDED, result.resolution);
+
+        RoundResolver.resolve(new RPSGesture[]{R, S, U}, 3, result);
+        assertEquals(Resolution.UNDECIDED, result.resolution);
+        assertEquals(RPSGesture.UNKNOWN, result.winningGesture);
+        assertEquals(0, result.winnerMask);
+    }
+
+    @Test
+    public void drawWhenOneOrAllThreeGesturesAreThrown() {
+        RoundResolver.Result result = new RoundResolver.Result();
+
+        RoundResolver.resolve(new RPSGesture[]{P, P, P}, 3, result);
+        assertEquals(Resolution.DRAW, result.resolution);
+
+        RoundResolver.resolve(new RPSGesture[]{R, P, S, R}, 4, result);
+        assertEquals(Resolution.DRAW, result.resolution);
+        assertEquals(RPSGesture.UNKNOWN, result.winningGesture);
+        assertEquals(0, result.winnerMask);
+    }
+
+    @Test
+    public void everyPlayerWithTheStrongerGestureWins() {
+        RoundResolver.Result result = new RoundResolver.Result();
+
+        RoundResolver.resolve(new RPSGesture[]{S, P, S, P, P}, 5, result);
+        assertEquals(Resolution.DECIDED, result.resolution);
+        assertEquals(S, result.winningGesture);
+        assertEquals(0b00101, result.winnerMask);
+    }
+
+    @Test
+    public void onlyTheFirstPlayersCount() {
+        RoundResolver.Result result = new RoundResolver.Result();
+
+        // The unknown gesture and the paper are past the player count
+        RoundResolver.resolve(new RPSGesture[]{R, S, U, P}, 2, result);
+        assertEquals(Resolution.DECIDED, result.resolution);
+        assertEquals(R, result.winningGesture);
+        assertEquals(0b01, result.winnerMask);
+    }
+
+    @Test
+    public void winnerMaskCoversThirtyTwoPlayers() {
+        RPSGesture[] gestures = new RPSGesture[32];
+        Arrays.fill(gestures, R);
+        gestures[31] = P;
+        RoundResolver.Result result = new RoundResolver.Result();
+
+        RoundResolver.resolve(gestures, gestures.length, result);
+        assertEquals(Resolution.DECIDED, result.resolution);
+        assertEquals(P, result.winningGesture);
+        assertEquals(1 << 31, result.winnerMask);
+    }
+}
@@ -1,5 +1,189 @@
 var exec = require('cordova/exec');
 
-exports.showGameScreen = function(success, error) {
-    exec(success, error, 'RPSGamePlugin', 'showGameScreen', []);
-};
\ No newline at end of file
+/**
+ * Opens the game screen.
+ *
+ * Supported options (Android):
+ *   liveStream           - run MediaPipe in LIVE_STREAM mode with asynchronous inference (default true)
+ *   pipelined            - with liveStream off, convert the next frame while the current one is
+ *                          inferred, on separate threads (default true on devices with 4 or more cores)
+ *   players              - number of players, 2 to 6, numbered left to right; a round is only
+ *                          decided once every player is in view (default 2)
+ *   stabilizerWindow     - number of frames each player's gesture is smoothed over (default 8)
+ *   stabilizerEnterRatio - share of the window a new gesture needs before it is shown (default 0.6)
+ *   stabilizerExitRatio  - share below which the shown gesture is dropped again (default 0.35)
+ *   adaptiveInference    - scale the inference rate and resolution with game state, heat and
+ *                          battery saver (default true)
+ *   roiTracking          - crop inference to the regions where hands were last seen, with
+ *                          liveStream off only (default false)
+ *   skeletonOverlay      - draw each hand's 21 landmarks and bones, as the detector sees them
+ *                          (default false)
+ *   motionGate           - reuse the last detection for frames that barely changed, instead of
+ *                          running inference on them (default true)
+ *   motionThreshold      - luma change (0-255) of the most changed part of the frame that counts
+ *                          as motion (default 12)
+ *   motionMaxAgeMs       - longest a detection is reused before inference runs anyway (default 500)
+ *   recordLandmarks      - record the detected landmarks of every frame to the app's files
+ *                          directory under landmarks/, for offline replay (default false)
+ *   roundMode            - play countdown rounds ("Rock, Paper, Scissors, Shoot!") and decide
+ *                          each round from the frames around "Shoot!" only (default false)
+ *   bestOf               - rounds per match in round mode, an odd number (default 3)
+ *   frameSource          - play recorded frames instead of the camera, for benchmarks without a
+ *                          camera or players; the screen closes when they run out (default none):
+ *     path     - a directory of PNG/JPEG/WebP images played in name order, or a raw dump of
+ *                back-to-back frames; relative paths are under the app's external files directory
+ *     format   - raw dump format, 'rgba' (RGBA_8888) or 'nv21' (default 'rgba')
+ *     width    - raw dump frame width
+ *     height   - raw dump frame height
+ *     fps      - playback rate, 0 for as fast as the pipeline takes them (default 0)
+ *     loops    - times to play the frames, 0 to repeat until the screen is closed (default 1)
+ *     rotation - clockwise degrees that make the frames upright (default 0)
+ */
+exports.showGameScreen = function(success, error, options) {
+    exec(success, error, 'RPSGamePlugin', 'showGameScreen', [options || {}]);
+};
+
+/**
+ * Loads the hand detection model ahead of time, so the game screen opens without a cold
+ * start (Android). The plugin already preloads on app start; call this again after a long
+ * idle period, when the model may have been released.
+ *
+ * Supported options:
+ *   liveStream - preload for the running mode showGameScreen will use (default true)
+ *   players    - preload for the number of players showGameScreen will use (default 2)
+ */
+exports.preload = function(success, error, options) {
+    exec(success, error, 'RPSGamePlugin', 'preload', [options || {}]);
+};
+
+/**
+ * Streams game state changes while the game screen is open (Android).
+ *
+ * success is called repeatedly with an array of events, never once per camera frame: changes
+ * are batched for batchDelayMs and sent at most maxBatchesPerSecond times per second, and only
+ * the latest change of each kind is kept. Every event has a type and a timestamp:
+ *   { type: 'sessionStarted' | 'sessionEnded' }
+ *   { type: 'hands', count }
+ *   { type: 'gesture', player, gesture: 'ROCK' | 'PAPER' | 'SCISSORS' | 'UNKNOWN', displayName }
+ *   { type: 'outcome', resolution: 'UNDECIDED' | 'DRAW' | 'DECIDED', winners: [player, ...],
+ *     winner: the only winner or 0, gestures: [gesture per player] }
+ *   { type: 'round', round, resolution, winners, winner, gestures, score: [wins per player],
+ *     matchWinners: [player, ...] }                               (round mode only)
+ * Players are numbered from 1, left to right on screen. A DECIDED round has exactly two
+ * gestures thrown and everyone with the stronger one wins; one gesture for all, or all three
+ * at once, is a DRAW.
+ *
+ * Supported options:
+ *   maxBatchesPerSecond - upper bound on callbacks per second (default 4)
+ *   batchDelayMs        - how long a change waits for others to join its batch (default 100)
+ *
+ * Starting a new stream ends the previous one.
+ */
+exports.startDetectionStream = function(success, error, options) {
+    exec(success, error, 'RPSGamePlugin', 'startDetectionStream', [options || {}]);
+};
+
+/**
+ * Sends any queued events and ends the stream started by startDetectionStream.
+ */
+exports.stopDetectionStream = function(success, error) {
+    exec(success, error, 'RPSGamePlugin', 'stopDetectionStream', []);
+};
+
+/**
+ * Returns latency percentiles of the detection pipeline since the last reset (Android).
+ *
+ * The result has the shape:
+ *   {
+ *     stages: { <stage>: { count, mean, p50, p95, p99 } },   // milliseconds
+ *     counters: { <counter>: number },
+ *     pipeline: { conversion, inference: { occupancy } },   // busy share of each thread, pipelined only
+ *     roi: { hitRate },   // share of the roiTracking frames that were cropped
+ *     device: { manufacturer, model, sdkInt },
+ *     sinceMillis: epoch time of the last reset
+ *   }
+ *
+ * Stages:
+ *   convert            - camera frame copied into a MediaPipe image
+ *   inference          - image submitted until its landmarks are back
+ *   process            - landmarks to result: classification, players, outcome
+ *   uiQueue            - result published until the screen applies it
+ *   draw               - overlay drawing
+ *   endToEnd           - camera capture until the result is on screen
+ *   firstDetectionCold - screen opened until the first result, with the model loaded on open
+ *   firstDetectionWarm - same, with the model already loaded by an earlier screen
+ *   roiCropped         - roiTracking: cropped frame, conversion and inference
+ *   roiFull            - roiTracking: full frame, conversion and inference
+ *
+ * Counters:
+ *   framesReceived        - frames delivered by the camera
+ *   framesDropped         - frames the camera replaced before delivering them because analysis
+ *                           was behind, estimated from gaps in the frame timestamps
+ *   framesSkipped         - left out by adaptiveInference or the motion gate
+ *   framesReused          - unchanged per the motion gate, the last result was reused
+ *   framesAnalyzed        - submitted to the hand landmarker
+ *   resultsStale          - live stream results dropped for arriving out of order
+ *   snapshotsSuperseded   - results replaced by a newer one before the screen showed them
+ *   handoffDropped        - pipelined: converted frames replaced before inference took them
+ *   frameBuffersAllocated - frame buffers (re)allocated, stays flat once the size is settled
+ *   frameBufferBytes      - bytes of those buffers
+ *   errors                - frames that failed in hand detection
+ */
+exports.getPerformanceStats = function(success, error) {
+    exec(success, error, 'RPSGamePlugin', 'getPerformanceStats', []);
+};
+
+/**
+ * Clears the statistics returned by getPerformanceStats (Android).
+ */
+exports.resetPerformanceStats = function(success, error) {
+    exec(success, error, 'RPSGamePlugin', 'resetPerformanceStats', []);
+};
+
+/**
+ * Returns totals over every logged outcome and countdown round, kept across app restarts
+ * (Android). The totals are maintained as records are written, so the cost does not grow
+ * with the history.
+ *
+ * The result has the shape:
+ *   {
+ *     records, decided, draws, drawRate, missed, liveOutcomes, countdownRounds,
+ *     players: [{ player, rounds, wins, winRate }],
+ *     gestures: { ROCK | PAPER | SCISSORS | UNKNOWN: { thrown, frequency, wins } },
+ *     decisionLatency: { count, meanMs, maxMs },
+ *     firstTimestamp, lastTimestamp,
+ *     droppedRecords,   // records lost because the writer fell behind or the log could not be opened
+ *     openError,        // only present when the log could not be opened
+ *     recent: [{ timestamp, source: 'live' | 'round', resolution, winningGesture, winners,
+ *                gestures, confidences, decisionLatencyMs }]   // newest first
+ *   }
+ *
+ * Supported options:
+ *   recent - number of latest records to include, up to 100 (default 0)
+ */
+exports.getMatchStats = function(success, error, options) {
+    exec(success, error, 'RPSGamePlugin', 'getMatchStats', [options || {}]);
+};
+
+/**
+ * Starts or stops recording per-frame pipeline events into an in-memory ring buffer (Android).
+ * Off by default; while off, the detection pipeline pays nothing for it.
+ *
+ * Supported options:
+ *   enabled  - record events (default false)
+ *   capacity - events kept, the oldest are overwritten (default 8192, at most 65536)
+ */
+exports.setFrameTrace = function(success, error, options) {
+    exec(success, error, 'RPSGamePlugin', 'setFrameTrace', [options || {}]);
+};
+
+/**
+ * Writes the recorded events to a file in the app's cache directory (Android), in the Chrome
+ * trace event format that https://ui.perfetto.dev and chrome://tracing open directly.
+ *
+ * The result has the shape:
+ *   { path, events, overwritten: events lost to the ring wrapping around, enabled }
+ */
+exports.dumpFrameTrace = function(success, error) {
+    exec(success, error, 'RPSGamePlugin', 'dumpFrameTrace', []);
+};